@@ -0,0 +1,132 @@
+package ru.maxmorev.eshop.customer.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.GrantedAuthority;
+import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.entities.CustomerAuthority;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bitmask backed {@link Customer#getAuthorities()} with the former comma separated
+ * representation, kept here verbatim as {@link Legacy}. Run with {@code ./gradlew jmh};
+ * the gc profiler reports {@code gc.alloc.rate.norm} per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthoritiesBenchmark {
+
+    private static final CustomerAuthority ADMIN = new CustomerAuthority(AuthorityValues.ADMIN);
+
+    private Customer customer;
+    private Legacy legacy;
+
+    @Setup
+    public void setUp() {
+        customer = Customer.builder().authorities("CUSTOMER,ADMIN").build();
+        legacy = new Legacy("CUSTOMER,ADMIN");
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthoritiesLegacy() {
+        return legacy.getAuthorities();
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthoritiesMask() {
+        return customer.getAuthorities();
+    }
+
+    @Benchmark
+    public boolean containsLegacy() {
+        return legacy.getAuthorities().contains(ADMIN);
+    }
+
+    @Benchmark
+    public boolean containsMask() {
+        return customer.getAuthorities().contains(ADMIN);
+    }
+
+    @Benchmark
+    public void iterateLegacy(Blackhole bh) {
+        for (GrantedAuthority authority : legacy.getAuthorities()) {
+            bh.consume(authority.getAuthority());
+        }
+    }
+
+    @Benchmark
+    public void iterateMask(Blackhole bh) {
+        for (GrantedAuthority authority : customer.getAuthorities()) {
+            bh.consume(authority.getAuthority());
+        }
+    }
+
+    @Benchmark
+    public String addAuthorityLegacy() {
+        Legacy l = new Legacy("CUSTOMER");
+        l.addAuthority(AuthorityValues.ADMIN);
+        l.addAuthority(AuthorityValues.ADMIN);
+        return l.authorities;
+    }
+
+    @Benchmark
+    public int addAuthorityMask() {
+        customer.removeAllAuthorities();
+        customer.addAuthority(AuthorityValues.CUSTOMER);
+        customer.addAuthority(AuthorityValues.ADMIN);
+        customer.addAuthority(AuthorityValues.ADMIN);
+        return customer.getAuthorityMask();
+    }
+
+    /**
+     * The string based implementation {@link Customer} used before the bitmask column.
+     */
+    static class Legacy {
+        private String authorities;
+
+        Legacy(String authorities) {
+            this.authorities = authorities;
+        }
+
+        Collection<? extends GrantedAuthority> getAuthorities() {
+            Set<CustomerAuthority> authSet = new HashSet<>();
+            if (Objects.isNull(authorities))
+                return null;
+            Arrays.asList(authorities.split(","))
+                    .forEach(str ->
+                            authSet.add(new CustomerAuthority(AuthorityValues.valueOf(str))));
+            return authSet;
+        }
+
+        void addAuthority(AuthorityValues auth) {
+            if (Objects.isNull(authorities)) {
+                authorities = auth.name();
+                return;
+            }
+            Collection<? extends GrantedAuthority> authSet = getAuthorities();
+            if (authSet.contains(new CustomerAuthority(auth))) return;
+            authorities += "," + auth.name();
+        }
+    }
+
+}
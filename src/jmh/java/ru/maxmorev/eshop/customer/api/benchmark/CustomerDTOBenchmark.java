@@ -0,0 +1,38 @@
+package ru.maxmorev.eshop.customer.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CustomerDTOBenchmark {
+
+    private Customer customer;
+
+    @Setup
+    public void setUp() {
+        customer = Customers.customer();
+    }
+
+    @Benchmark
+    public CustomerDTO of() {
+        return CustomerDTO.of(customer);
+    }
+
+}
@@ -0,0 +1,36 @@
+package ru.maxmorev.eshop.customer.api.benchmark;
+
+import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+
+import java.util.Date;
+
+/**
+ * Fixture shared by the benchmarks, shaped like the rows of {@code db/customer/test-data.sql}.
+ */
+final class Customers {
+
+    static final String PASSWORD_HASH = "$2a$10$um0PcvHczmxeUEbR3vCBGuOvtNdgJffm72knavG/EFE7JDm9QBEha";
+
+    private Customers() {
+    }
+
+    static Customer customer() {
+        Customer customer = Customer
+                .builder()
+                .id(10L)
+                .email("test@titsonfire.store")
+                .fullName("Maxim V Morev")
+                .country("Russia")
+                .postcode("111123")
+                .city("Moscow")
+                .address("Address test")
+                .password(PASSWORD_HASH)
+                .verifyCode("TKYOC")
+                .authorities(AuthorityValues.CUSTOMER.name())
+                .build();
+        customer.setDateOfCreation(new Date(1566758783918L));
+        return customer;
+    }
+
+}
@@ -0,0 +1,89 @@
+package ru.maxmorev.eshop.customer.api.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.maxmorev.eshop.customer.api.annotation.EmailAddressValidator;
+import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * {@link EmailAddressValidator} against the RFC 2822 regular expression it replaced, plus bean validation
+ * of {@link CustomerInfo#getEmail()} as done for every create and update request.
+ * {@code hostile-N} inputs are {@code "a@"} followed by N letters and a trailing {@code '!'}, on which the
+ * regular expression backtracks; much longer ones overflow its stack.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailValidationBenchmark {
+
+    private static final Pattern RFC2822 = Pattern.compile("(?:[a-z0-9!#$%&'*+/=?^_`{|}~-]+(?:\\.[a-z0-9!#$%&'*+/=?^_`{|}~-]+)*|\"(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21\\x23-\\x5b\\x5d-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])*\")@(?:(?:[a-z0-9](?:[a-z0-9-]*[a-z0-9])?\\.)+[a-z0-9](?:[a-z0-9-]*[a-z0-9])?|\\[(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?|[a-z0-9-]*[a-z0-9]:(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21-\\x5a\\x53-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])+)\\])");
+
+    @Param({
+            "test@titsonfire.store",
+            "first.last+tag@mail.shop.titsonfire.store",
+            "\"quoted local\"@titsonfire.store",
+            "not-an-email@",
+            "hostile-64",
+            "hostile-1024"})
+    private String input;
+
+    private String email;
+    private ValidatorFactory factory;
+    private Validator validator;
+
+    @Setup
+    public void setUp() {
+        email = input;
+        if (input.startsWith("hostile-")) {
+            StringBuilder sb = new StringBuilder("a@");
+            for (int i = Integer.parseInt(input.substring("hostile-".length())); i > 0; i--) {
+                sb.append('a');
+            }
+            email = sb.append('!').toString();
+        }
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return RFC2822.matcher(email).matches();
+    }
+
+    @Benchmark
+    public boolean validator() {
+        return EmailAddressValidator.isValidAddress(email);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<CustomerInfo>> beanValidation() {
+        return validator.validateValue(CustomerInfo.class, "email", email);
+    }
+
+}
@@ -0,0 +1,56 @@
+package ru.maxmorev.eshop.customer.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.rest.response.Message;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response body serialization with a shared mapper, as done by the message converters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectWriter writer;
+    private Customer customer;
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().writer();
+        customer = Customers.customer();
+        message = new Message(Message.ERROR, "http://localhost:8080/customer/", "Validation error", Arrays.asList(
+                new Message.ErrorDetail("email", "Email format is invalid"),
+                new Message.ErrorDetail("password", "Password must not be blank")));
+    }
+
+    @Benchmark
+    public byte[] customer() throws JsonProcessingException {
+        return writer.writeValueAsBytes(customer);
+    }
+
+    @Benchmark
+    public byte[] message() throws JsonProcessingException {
+        return writer.writeValueAsBytes(message);
+    }
+
+}
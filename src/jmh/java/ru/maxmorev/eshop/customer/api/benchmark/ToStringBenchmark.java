@@ -0,0 +1,85 @@
+package ru.maxmorev.eshop.customer.api.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerVerify;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code toString()} of the objects logged on the create and verify paths, against the former
+ * implementation that built a new {@link ObjectMapper} per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToStringBenchmark {
+
+    private Customer customer;
+    private CustomerVerify verify;
+
+    @Setup
+    public void setUp() {
+        customer = Customer
+                .builder()
+                .id(10L)
+                .email("test@titsonfire.store")
+                .fullName("Maxim V Morev")
+                .country("Russia")
+                .postcode("111123")
+                .city("Moscow")
+                .address("Address test")
+                .password("$2a$10$um0PcvHczmxeUEbR3vCBGuOvtNdgJffm72knavG/EFE7JDm9QBEha")
+                .verifyCode("TKYOC")
+                .authorities(AuthorityValues.CUSTOMER.name())
+                .build();
+        verify = new CustomerVerify();
+        verify.setId(10L);
+        verify.setVerifyCode("TKYOC");
+    }
+
+    @Benchmark
+    public String customerNewMapper() {
+        return newMapper(customer);
+    }
+
+    @Benchmark
+    public String customerToString() {
+        return customer.toString();
+    }
+
+    @Benchmark
+    public String verifyNewMapper() {
+        return newMapper(verify);
+    }
+
+    @Benchmark
+    public String verifyToString() {
+        return verify.toString();
+    }
+
+    private static String newMapper(Object value) {
+        ObjectMapper mapper = new ObjectMapper();
+        try {
+            return mapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return e.getMessage();
+        }
+    }
+
+}
@@ -0,0 +1,54 @@
+package ru.maxmorev.eshop.customer.api.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Customers created so far, so reads, updates and verifications target existing rows.
+ */
+class CustomerPool {
+
+    static class Entry {
+        final long id;
+        final String email;
+        final String verifyCode;
+        /**
+         * Last ETags seen for this customer, sent back as {@code If-None-Match} by conditional reads.
+         */
+        volatile String etagById;
+        volatile String etagByEmail;
+
+        Entry(long id, String email, String verifyCode) {
+            this.id = id;
+            this.email = email;
+            this.verifyCode = verifyCode;
+        }
+    }
+
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Entry> entries = new ArrayList<>();
+
+    String nextEmail() {
+        return "load-" + runId + "-" + sequence.incrementAndGet() + "@titsonfire.store";
+    }
+
+    synchronized void add(Entry entry) {
+        entries.add(entry);
+    }
+
+    synchronized Entry random() {
+        return entries.get(ThreadLocalRandom.current().nextInt(entries.size()));
+    }
+
+    synchronized Entry last() {
+        return entries.get(entries.size() - 1);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+}
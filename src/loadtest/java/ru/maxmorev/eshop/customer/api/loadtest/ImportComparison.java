@@ -0,0 +1,161 @@
+package ru.maxmorev.eshop.customer.api.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.service.CustomerService;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates {@code loadtest.importCustomers} customers twice, once with one {@code POST /customer/} each,
+ * {@code clientThreads} at a time, and once with a single {@code POST /customer/batch} of all of them,
+ * and reports customers created per second for both. The batch is sent by an ADMIN created in the
+ * in-process application, so the comparison needs one.
+ */
+class ImportComparison {
+
+    private static final String PASSWORD = "load-test-password";
+
+    private final LoadTestSettings settings;
+    private final String baseUrl;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final ObjectNode summary = mapper.createObjectNode();
+
+    ImportComparison(LoadTestSettings settings, String baseUrl) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+    }
+
+    void run(ConfigurableApplicationContext context) throws IOException, InterruptedException {
+        String authorization = admin(context.getBean(CustomerService.class));
+        int count = settings.importCustomers;
+
+        long started = System.nanoTime();
+        int created = singlePosts(count);
+        double singleSeconds = seconds(started);
+
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            body.append(customer("batch", i)).append('\n');
+        }
+        HttpRequest batch = HttpRequest.newBuilder(URI.create(baseUrl + "/customer/batch"))
+                .timeout(Duration.ofMinutes(10))
+                .header("Content-Type", "application/x-ndjson")
+                .header("Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString(), StandardCharsets.UTF_8))
+                .build();
+        started = System.nanoTime();
+        HttpResponse<String> response = client.send(batch, HttpResponse.BodyHandlers.ofString());
+        double batchSeconds = seconds(started);
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Import failed with " + response.statusCode() + ": " + response.body());
+        }
+        int imported = 0;
+        for (String line : response.body().split("\n")) {
+            if (!line.isEmpty() && "success".equals(mapper.readTree(line).path("status").asText())) {
+                imported++;
+            }
+        }
+
+        summary.put("customers", count);
+        summary.put("clientThreads", settings.clientThreads);
+        summary.put("singlePostCreated", created);
+        summary.put("singlePostPerSecond", created / singleSeconds);
+        summary.put("batchCreated", imported);
+        summary.put("batchPerSecond", imported / batchSeconds);
+        summary.put("speedup", (imported / batchSeconds) / (created / singleSeconds));
+    }
+
+    void print(PrintStream out) {
+        out.printf("Import of %d customers: single POST %.1f/s (%d created), batch %.1f/s (%d created), speedup %.1fx%n",
+                summary.get("customers").asInt(),
+                summary.get("singlePostPerSecond").asDouble(), summary.get("singlePostCreated").asInt(),
+                summary.get("batchPerSecond").asDouble(), summary.get("batchCreated").asInt(),
+                summary.get("speedup").asDouble());
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        mapper.copy().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), summary);
+    }
+
+    /**
+     * @return number of customers created
+     */
+    private int singlePosts(int count) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(settings.clientThreads);
+        AtomicInteger created = new AtomicInteger();
+        List<CompletableFuture<?>> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            inFlight.acquire();
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/customer/"))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(customer("single", i).toString(), StandardCharsets.UTF_8))
+                    .build();
+            requests.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                inFlight.release();
+                if (error == null && response.statusCode() == 200) {
+                    created.incrementAndGet();
+                }
+            }));
+        }
+        CompletableFuture.allOf(requests.toArray(new CompletableFuture[0])).exceptionally(e -> null).join();
+        return created.get();
+    }
+
+    private ObjectNode customer(String kind, int i) {
+        return mapper.createObjectNode()
+                .put("email", "import-" + runId + "-" + kind + "-" + i + "@titsonfire.store")
+                .put("fullName", "Load Test")
+                .put("country", "Russia")
+                .put("postcode", "111123")
+                .put("city", "Moscow")
+                .put("address", "Load test address")
+                .put("password", PASSWORD);
+    }
+
+    /**
+     * @return HTTP Basic credentials of a verified ADMIN
+     */
+    private String admin(CustomerService customerService) {
+        String email = "import-" + runId + "-admin@titsonfire.store";
+        Customer admin = customerService.createAdminAndVerifyByEmail(Customer.builder()
+                .email(email)
+                .fullName("Load Test")
+                .country("Russia")
+                .postcode("111123")
+                .city("Moscow")
+                .address("Load test address")
+                .password(PASSWORD)
+                .build());
+        customerService.verify(admin.getId(), admin.getVerifyCode());
+        return "Basic " + Base64.getEncoder().encodeToString((email + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static double seconds(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+
+}
@@ -0,0 +1,310 @@
+package ru.maxmorev.eshop.customer.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogWriter;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * Open model load: requests are started on a fixed schedule of {@code rate} per second whether or not
+ * earlier ones have completed, and latency is measured from the scheduled start, so a stalled server
+ * shows up as latency instead of silently lowering the offered load (no coordinated omission).
+ * Requests that would exceed {@code maxInFlight} are not sent and counted as dropped.
+ * Reads go to the read URLs in turn, writes always to the base URL. The API never returns verification
+ * codes, so verifications use the codes {@code verifyCodes} looks up, an empty one when it cannot.
+ */
+class LoadGenerator implements AutoCloseable {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    static class Stats {
+        final Recorder recorder = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        final Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong dropped = new AtomicLong();
+        final AtomicLong notModified = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        private Histogram interval;
+
+        synchronized Histogram takeInterval() {
+            interval = recorder.getIntervalHistogram(interval);
+            return interval;
+        }
+
+        void reset() {
+            takeInterval();
+            total.reset();
+            errors.set(0);
+            dropped.set(0);
+            notModified.set(0);
+            bytes.set(0);
+        }
+    }
+
+    private final LoadTestSettings settings;
+    private final String baseUrl;
+    private final List<String> readUrls;
+    private final AtomicInteger nextRead = new AtomicInteger();
+    private final LongFunction<String> verifyCodes;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ExecutorService clientExecutor;
+    private final HttpClient client;
+    private final CustomerPool pool = new CustomerPool();
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+    private final Semaphore inFlight;
+    private volatile boolean measuring;
+
+    LoadGenerator(LoadTestSettings settings, String baseUrl) {
+        this(settings, baseUrl, Collections.singletonList(baseUrl), id -> "");
+    }
+
+    LoadGenerator(LoadTestSettings settings, String baseUrl, List<String> readUrls, LongFunction<String> verifyCodes) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+        this.readUrls = readUrls;
+        this.verifyCodes = verifyCodes;
+        this.clientExecutor = Executors.newFixedThreadPool(settings.clientThreads);
+        this.client = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.inFlight = new Semaphore(settings.maxInFlight);
+        this.operations = settings.mix.keySet().toArray(new Operation[0]);
+        this.cumulativeWeights = new int[operations.length];
+        int sum = 0;
+        for (int i = 0; i < operations.length; i++) {
+            sum += settings.mix.get(operations[i]);
+            cumulativeWeights[i] = sum;
+        }
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    Map<Operation, Stats> stats() {
+        return stats;
+    }
+
+    /**
+     * Creates the customers later requests read and update, one at a time and outside of measurement,
+     * and waits until every read URL serves the last of them.
+     */
+    void seed() throws IOException, InterruptedException {
+        for (int i = 0; i < settings.seedCustomers; i++) {
+            HttpResponse<String> response = send(Operation.CREATE).join();
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with " + response.statusCode() + ": " + response.body());
+            }
+        }
+        String path = "/customer/id/" + pool.last().id;
+        for (String readUrl : readUrls) {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(1);
+            while (client.send(HttpRequest.newBuilder(URI.create(readUrl + path)).GET().build(), HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Seeded customers did not reach " + readUrl);
+                }
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    /**
+     * Runs the warmup and then the measured phase, writing interval histograms of the latter to {@code log}.
+     *
+     * @return measured duration in nanoseconds
+     */
+    long run(HistogramLogWriter log) throws InterruptedException {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate);
+        long start = System.nanoTime();
+        long measureFrom = start + settings.warmup.toNanos();
+        long end = measureFrom + settings.duration.toNanos();
+        ScheduledExecutorService intervals = Executors.newSingleThreadScheduledExecutor();
+        long logStart = System.currentTimeMillis() + settings.warmup.toMillis();
+        log.outputStartTime(logStart);
+        log.setBaseTime(logStart);
+        log.outputLegend();
+        intervals.scheduleAtFixedRate(() -> collect(log), 1, 1, TimeUnit.SECONDS);
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            if (!measuring && intended >= measureFrom) {
+                stats.values().forEach(Stats::reset);
+                measuring = true;
+            }
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            dispatch(pick(), intended);
+        }
+        inFlight.acquire(settings.maxInFlight);
+        inFlight.release(settings.maxInFlight);
+        intervals.shutdown();
+        intervals.awaitTermination(5, TimeUnit.SECONDS);
+        collect(log);
+        return end - measureFrom;
+    }
+
+    private void collect(HistogramLogWriter log) {
+        for (Map.Entry<Operation, Stats> entry : stats.entrySet()) {
+            Histogram interval = entry.getValue().takeInterval();
+            if (measuring && interval.getTotalCount() > 0) {
+                entry.getValue().total.add(interval);
+                interval.setTag(entry.getKey().key);
+                log.outputIntervalHistogram(interval);
+            }
+        }
+    }
+
+    private Operation pick() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (value < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    private void dispatch(Operation operation, long intended) {
+        Stats s = stats.get(operation);
+        if (!inFlight.tryAcquire()) {
+            s.dropped.incrementAndGet();
+            return;
+        }
+        send(operation).whenComplete((response, error) -> {
+            inFlight.release();
+            if (error == null && (response.statusCode() / 100 == 2 || response.statusCode() == 304)) {
+                if (response.statusCode() == 304) {
+                    s.notModified.incrementAndGet();
+                }
+                s.bytes.addAndGet(response.body().length());
+                s.recorder.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended));
+            } else {
+                s.errors.incrementAndGet();
+            }
+        });
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(Operation operation) {
+        HttpRequest request;
+        switch (operation) {
+            case CREATE:
+                String email = pool.nextEmail();
+                request = json("/customer/", "POST", mapper.createObjectNode()
+                        .put("email", email)
+                        .put("fullName", "Load Test")
+                        .put("country", "Russia")
+                        .put("postcode", "111123")
+                        .put("city", "Moscow")
+                        .put("address", "Load test address")
+                        .put("password", "load-test-password"));
+                return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(this::created);
+            case VERIFY:
+                CustomerPool.Entry toVerify = pool.random();
+                request = json("/customer/verify/", "POST", mapper.createObjectNode()
+                        .put("id", toVerify.id)
+                        .put("verifyCode", toVerify.verifyCode));
+                break;
+            case UPDATE:
+                CustomerPool.Entry toUpdate = pool.random();
+                request = json("/update/", "PUT", mapper.createObjectNode()
+                        .put("email", toUpdate.email)
+                        .put("fullName", "Load Test")
+                        .put("country", "Russia")
+                        .put("postcode", "111123")
+                        .put("city", "City " + ThreadLocalRandom.current().nextInt(1000))
+                        .put("address", "Load test address"));
+                break;
+            case GET_BY_ID:
+                CustomerPool.Entry byId = pool.random();
+                return client.sendAsync(get("/customer/id/" + byId.id, byId.etagById), HttpResponse.BodyHandlers.ofString())
+                        .thenApply(r -> {
+                            byId.etagById = r.headers().firstValue("ETag").orElse(byId.etagById);
+                            return r;
+                        });
+            case GET_BY_EMAIL:
+                CustomerPool.Entry byEmail = pool.random();
+                return client.sendAsync(get("/customer/email/" + byEmail.email, byEmail.etagByEmail), HttpResponse.BodyHandlers.ofString())
+                        .thenApply(r -> {
+                            byEmail.etagByEmail = r.headers().firstValue("ETag").orElse(byEmail.etagByEmail);
+                            return r;
+                        });
+            default:
+                throw new IllegalArgumentException(operation.key);
+        }
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> created(HttpResponse<String> response) {
+        if (response.statusCode() == 200) {
+            try {
+                JsonNode customer = mapper.readTree(response.body());
+                long id = customer.get("id").asLong();
+                pool.add(new CustomerPool.Entry(id, customer.get("email").asText(), verifyCodes.apply(id)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return response;
+    }
+
+    private HttpRequest json(String path, String method, ObjectNode body) {
+        try {
+            return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .timeout(Duration.ofSeconds(30))
+                    .header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body), StandardCharsets.UTF_8))
+                    .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private HttpRequest get(String path, String etag) {
+        String readUrl = readUrls.get(Math.floorMod(nextRead.getAndIncrement(), readUrls.size()));
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(readUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (settings.conditional && etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public void close() {
+        clientExecutor.shutdownNow();
+    }
+
+}
@@ -0,0 +1,195 @@
+package ru.maxmorev.eshop.customer.api.loadtest;
+
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.maxmorev.eshop.customer.api.EshopCustomerApiApplication;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Entry point of {@code ./gradlew loadTest}. Boots the application on a random port against a
+ * temporary H2 file (unless {@code loadtest.target} points to a running instance), seeds customers,
+ * drives the configured operation mix at a constant arrival rate and writes to {@code loadtest.reportDir}:
+ * <ul>
+ * <li>{@code summary.json} - per operation counts, throughput and latency percentiles</li>
+ * <li>{@code latency.hlog} - tagged one-second HdrHistogram intervals, readable by HistogramLogProcessor</li>
+ * <li>{@code <operation>.hgrm} - full percentile distribution of the measured phase</li>
+ * </ul>
+ * Exits with status 1 when the summary regresses against {@code loadtest.baseline};
+ * {@code loadtest.updateBaseline=true} replaces the baseline with this run instead.
+ * With {@code loadtest.replicas} the in-process application publishes replication files and that many
+ * read replicas are started as child JVMs on the same classpath to serve the reads.
+ * With {@code loadtest.importCustomers} the run is followed by {@link ImportComparison}, written to {@code import.json}.
+ * Verification codes are read from the in-process application's database; against a {@code loadtest.target}
+ * verifications send an empty code and fail.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+        if (settings.seedCustomers <= 0) {
+            throw new IllegalArgumentException("loadtest.seedCustomers must be positive");
+        }
+        System.out.println("Load test: " + settings);
+        Path database = null;
+        ConfigurableApplicationContext context = null;
+        List<Process> replicas = new ArrayList<>();
+        String baseUrl = settings.target;
+        List<String> readUrls = Collections.singletonList(baseUrl);
+        LongFunction<String> verifyCodes = id -> "";
+        if (baseUrl.isEmpty()) {
+            database = Files.createTempDirectory("eshop-customer-loadtest");
+            List<String> args = new ArrayList<>(Arrays.asList(
+                    "--server.port=0",
+                    "--spring.datasource.url=jdbc:h2:file:" + database.resolve("customer") + ";DB_CLOSE_ON_EXIT=FALSE",
+                    "--spring.jpa.show-sql=false",
+                    "--spring.jpa.properties.hibernate.show_sql=false",
+                    "--logging.level.root=WARN"));
+            if (settings.replicas > 0) {
+                args.add("--customer.replication.role=primary");
+                args.add("--customer.replication.directory=" + database.resolve("replication"));
+            }
+            args.addAll(settings.appArgs);
+            context = SpringApplication.run(EshopCustomerApiApplication.class, args.toArray(new String[0]));
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            readUrls = Collections.singletonList(baseUrl);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            verifyCodes = id -> jdbcTemplate.queryForObject("select verifycode from customer where id = ?", String.class, id);
+        }
+        int status;
+        try {
+            if (context != null && settings.replicas > 0) {
+                readUrls = startReplicas(settings, database.resolve("replication"), replicas);
+            }
+            status = run(settings, baseUrl, readUrls, verifyCodes);
+            if (settings.importCustomers > 0) {
+                if (context == null) {
+                    throw new IllegalArgumentException("loadtest.importCustomers needs the in-process application");
+                }
+                ImportComparison comparison = new ImportComparison(settings, baseUrl);
+                comparison.run(context);
+                comparison.print(System.out);
+                comparison.write(settings.reportDir.resolve("import.json"));
+            }
+        } finally {
+            replicas.forEach(Process::destroy);
+            for (Process replica : replicas) {
+                replica.waitFor(30, TimeUnit.SECONDS);
+            }
+            if (context != null) {
+                context.close();
+            }
+            if (database != null) {
+                delete(database);
+            }
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Starts the replicas and waits until each reports UP, i.e. has loaded the primary's first snapshot.
+     *
+     * @return their base URLs
+     */
+    private static List<String> startReplicas(LoadTestSettings settings, Path directory, List<Process> processes) throws IOException, InterruptedException {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < settings.replicas; i++) {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            List<String> command = new ArrayList<>(Arrays.asList(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"),
+                    EshopCustomerApiApplication.class.getName(),
+                    "--spring.profiles.active=replica",
+                    "--server.port=" + port,
+                    "--customer.replication.directory=" + directory,
+                    "--spring.jpa.show-sql=false",
+                    "--spring.jpa.properties.hibernate.show_sql=false",
+                    "--logging.level.root=WARN"));
+            command.addAll(settings.appArgs);
+            processes.add(new ProcessBuilder(command).inheritIO().start());
+            urls.add("http://localhost:" + port);
+        }
+        HttpClient client = HttpClient.newHttpClient();
+        for (int i = 0; i < urls.size(); i++) {
+            long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+            HttpRequest health = HttpRequest.newBuilder(URI.create(urls.get(i) + "/actuator/health")).GET().build();
+            while (!isUp(client, health)) {
+                if (!processes.get(i).isAlive() || System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Replica " + urls.get(i) + " did not come up");
+                }
+                Thread.sleep(500);
+            }
+        }
+        System.out.println("Read replicas: " + urls);
+        return urls;
+    }
+
+    private static boolean isUp(HttpClient client, HttpRequest health) throws InterruptedException {
+        try {
+            return client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int run(LoadTestSettings settings, String baseUrl, List<String> readUrls, LongFunction<String> verifyCodes) throws IOException, InterruptedException {
+        Files.createDirectories(settings.reportDir);
+        LoadTestReport report;
+        HistogramLogWriter log = new HistogramLogWriter(settings.reportDir.resolve("latency.hlog").toFile());
+        try (LoadGenerator generator = new LoadGenerator(settings, baseUrl, readUrls, verifyCodes)) {
+            generator.seed();
+            long measured = generator.run(log);
+            for (Operation operation : settings.mix.keySet()) {
+                try (PrintStream out = new PrintStream(settings.reportDir.resolve(operation.key + ".hgrm").toFile(), "UTF-8")) {
+                    generator.stats().get(operation).total.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+            report = new LoadTestReport(settings, generator.stats(), measured);
+        } finally {
+            log.close();
+        }
+        report.print(System.out);
+        report.write(settings.reportDir.resolve("summary.json"));
+        if (settings.updateBaseline) {
+            report.write(settings.baseline);
+            System.out.println("Baseline updated: " + settings.baseline);
+            return 0;
+        }
+        if (!Files.exists(settings.baseline)) {
+            System.out.println("No baseline at " + settings.baseline + ", record one with -Ploadtest.updateBaseline=true");
+            return 0;
+        }
+        List<String> regressions = report.compare(settings.baseline, settings.p99Tolerance, settings.throughputTolerance);
+        regressions.forEach(r -> System.out.println("REGRESSION " + r));
+        return regressions.isEmpty() ? 0 : 1;
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+package ru.maxmorev.eshop.customer.api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per operation summary of a run, stored as JSON. The committed baseline has the same format;
+ * a run regresses when an operation's p99 exceeds the baseline by more than {@code p99Tolerance}
+ * or its throughput falls short of it by more than {@code throughputTolerance}.
+ */
+class LoadTestReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final ObjectNode summary = mapper.createObjectNode();
+
+    LoadTestReport(LoadTestSettings settings, Map<Operation, LoadGenerator.Stats> stats, long measuredNanos) {
+        double seconds = measuredNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        summary.put("rate", settings.rate);
+        summary.put("durationSeconds", seconds);
+        ObjectNode operations = summary.putObject("operations");
+        for (Map.Entry<Operation, LoadGenerator.Stats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().total;
+            if (!settings.mix.containsKey(entry.getKey())) {
+                continue;
+            }
+            ObjectNode operation = operations.putObject(entry.getKey().key);
+            operation.put("count", histogram.getTotalCount());
+            operation.put("errors", entry.getValue().errors.get());
+            operation.put("dropped", entry.getValue().dropped.get());
+            operation.put("notModified", entry.getValue().notModified.get());
+            operation.put("bytesPerRequest", histogram.getTotalCount() == 0 ? 0 : entry.getValue().bytes.get() / (double) histogram.getTotalCount());
+            operation.put("throughput", histogram.getTotalCount() / seconds);
+            for (double percentile : PERCENTILES) {
+                operation.put("p" + format(percentile) + "Millis", histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI);
+            }
+            operation.put("maxMillis", histogram.getMaxValue() / MICROS_PER_MILLI);
+        }
+    }
+
+    void print(PrintStream out) {
+        out.printf("%-12s %10s %8s %8s %8s %10s %12s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "dropped", "304", "bytes/req", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        summary.get("operations").fields().forEachRemaining(e -> {
+            JsonNode o = e.getValue();
+            out.printf("%-12s %10d %8d %8d %8d %10.1f %12.1f %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                    e.getKey(), o.get("count").asLong(), o.get("errors").asLong(), o.get("dropped").asLong(),
+                    o.path("notModified").asLong(), o.path("bytesPerRequest").asDouble(),
+                    o.get("throughput").asDouble(), o.get("p50Millis").asDouble(), o.get("p90Millis").asDouble(),
+                    o.get("p99Millis").asDouble(), o.get("p99.9Millis").asDouble(), o.get("maxMillis").asDouble());
+        });
+    }
+
+    void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        mapper.writeValue(file.toFile(), summary);
+    }
+
+    /**
+     * @return descriptions of every regression against {@code baselineFile}, empty if there are none
+     */
+    List<String> compare(Path baselineFile, double p99Tolerance, double throughputTolerance) throws IOException {
+        JsonNode baseline = mapper.readTree(baselineFile.toFile()).path("operations");
+        List<String> regressions = new ArrayList<>();
+        summary.get("operations").fields().forEachRemaining(e -> {
+            JsonNode expected = baseline.path(e.getKey());
+            if (expected.isMissingNode()) {
+                return;
+            }
+            double p99 = e.getValue().get("p99Millis").asDouble();
+            double p99Limit = expected.get("p99Millis").asDouble() * (1 + p99Tolerance);
+            if (p99 > p99Limit) {
+                regressions.add(String.format("%s p99 %.2f ms exceeds %.2f ms (baseline %.2f ms + %.0f%%)",
+                        e.getKey(), p99, p99Limit, expected.get("p99Millis").asDouble(), p99Tolerance * 100));
+            }
+            double throughput = e.getValue().get("throughput").asDouble();
+            double throughputLimit = expected.get("throughput").asDouble() * (1 - throughputTolerance);
+            if (throughput < throughputLimit) {
+                regressions.add(String.format("%s throughput %.1f req/s below %.1f req/s (baseline %.1f req/s - %.0f%%)",
+                        e.getKey(), throughput, throughputLimit, expected.get("throughput").asDouble(), throughputTolerance * 100));
+            }
+        });
+        return regressions;
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile);
+    }
+
+}
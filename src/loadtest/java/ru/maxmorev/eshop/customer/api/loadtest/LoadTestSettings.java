@@ -0,0 +1,109 @@
+package ru.maxmorev.eshop.customer.api.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Run parameters, read from {@code loadtest.*} system properties; the Gradle task forwards
+ * {@code -Ploadtest.*} project properties.
+ */
+class LoadTestSettings {
+
+    /**
+     * Base URL of a running instance; empty to boot the application in-process against a temporary H2 file.
+     */
+    final String target;
+    /**
+     * Extra {@code --name=value} arguments, separated by spaces, for the in-process application.
+     */
+    final List<String> appArgs;
+    final double rate;
+    final Duration warmup;
+    final Duration duration;
+    final int seedCustomers;
+    final int maxInFlight;
+    final int clientThreads;
+    final Map<Operation, Integer> mix;
+    /**
+     * Whether reads revalidate the last ETag seen for a customer with {@code If-None-Match}.
+     */
+    final boolean conditional;
+    /**
+     * Read replicas started as separate JVMs next to the in-process application, which then runs as the
+     * replication primary; reads go to the replicas in turn, writes to the primary.
+     */
+    final int replicas;
+    /**
+     * Customers created by single POSTs and by one bulk import after the run to compare both, 0 to skip;
+     * needs the in-process application.
+     */
+    final int importCustomers;
+    final Path baseline;
+    final Path reportDir;
+    final double p99Tolerance;
+    final double throughputTolerance;
+    final boolean updateBaseline;
+
+    private LoadTestSettings() {
+        target = property("target", "");
+        appArgs = Arrays.stream(property("appArgs", "").trim().split("\\s+"))
+                .filter(a -> !a.isEmpty())
+                .collect(Collectors.toList());
+        rate = Double.parseDouble(property("rate", "200"));
+        warmup = Duration.parse(property("warmup", "PT10S"));
+        duration = Duration.parse(property("duration", "PT60S"));
+        seedCustomers = Integer.parseInt(property("seedCustomers", "200"));
+        maxInFlight = Integer.parseInt(property("maxInFlight", "1000"));
+        clientThreads = Integer.parseInt(property("clientThreads", "8"));
+        mix = parseMix(property("mix", "create=1,verify=1,update=2,getById=8,getByEmail=8"));
+        conditional = Boolean.parseBoolean(property("conditional", "true"));
+        replicas = Integer.parseInt(property("replicas", "0"));
+        importCustomers = Integer.parseInt(property("importCustomers", "0"));
+        baseline = Paths.get(property("baseline", "src/loadtest/baseline.json"));
+        reportDir = Paths.get(property("reportDir", "build/reports/loadtest"));
+        p99Tolerance = Double.parseDouble(property("p99Tolerance", "0.25"));
+        throughputTolerance = Double.parseDouble(property("throughputTolerance", "0.05"));
+        updateBaseline = Boolean.parseBoolean(property("updateBaseline", "false"));
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings();
+    }
+
+    private static String property(String name, String defaultValue) {
+        return System.getProperty("loadtest." + name, defaultValue);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Mix entries must be <operation>=<weight>: " + entry);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.of(pair[0].trim()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Empty operation mix: " + mix);
+        }
+        return weights;
+    }
+
+    @Override
+    public String toString() {
+        return "target=" + (target.isEmpty() ? "in-process " + appArgs : target) +
+                ", rate=" + rate + "/s, warmup=" + warmup + ", duration=" + duration +
+                ", mix=" + mix + ", maxInFlight=" + maxInFlight +
+                (replicas > 0 ? ", replicas=" + replicas : "");
+    }
+
+}
@@ -0,0 +1,27 @@
+package ru.maxmorev.eshop.customer.api.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Requests of {@code CustomerController} driven by the load test.
+ */
+enum Operation {
+    CREATE("create"),
+    VERIFY("verify"),
+    UPDATE("update"),
+    GET_BY_ID("getById"),
+    GET_BY_EMAIL("getByEmail");
+
+    final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    static Operation of(String key) {
+        return Arrays.stream(values())
+                .filter(o -> o.key.equals(key))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown operation " + key));
+    }
+}
@@ -2,12 +2,17 @@ package ru.maxmorev.eshop.customer.api;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class EshopCustomerApiApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(EshopCustomerApiApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(EshopCustomerApiApplication.class, args);
+		// training run recording the classes loaded during startup for the class data sharing archive
+		if (context.getEnvironment().getProperty("customer.startup.exit-on-ready", Boolean.class, false)) {
+			System.exit(SpringApplication.exit(context));
+		}
 	}
 
 }
@@ -0,0 +1,34 @@
+package ru.maxmorev.eshop.customer.api.annotation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.ANNOTATION_TYPE;
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * The annotated string must be an RFC 2822 style address: a lower case dot-atom or quoted local part,
+ * then a lower case host name of at least two labels or a bracketed IPv4 / tagged domain literal.
+ * {@code null} is valid.
+ *
+ * @see EmailAddressValidator
+ */
+@Documented
+@Constraint(validatedBy = EmailAddressValidator.class)
+@Target({FIELD, METHOD, PARAMETER, ANNOTATION_TYPE})
+@Retention(RUNTIME)
+public @interface EmailAddress {
+
+    String message() default "{validation.email.format}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+
+}
@@ -0,0 +1,194 @@
+package ru.maxmorev.eshop.customer.api.annotation;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+import java.util.Objects;
+
+/**
+ * Single forward pass over the value without backtracking or allocation, accepting exactly the language of
+ * the RFC 2822 regular expression previously used with {@code @Email(regexp = ...)}:
+ * <pre>
+ * local   = dot-atom | '"' *(qtext | '\' escapable) '"'
+ * domain  = label 1*('.' label) | '[' 3(octet '.') (octet | tag ':' 1*content) ']'
+ * label   = [a-z0-9] [*[a-z0-9-] [a-z0-9]]
+ * octet   = 0-255 written with one to three digits
+ * content = any of %x01-7F except LF and CR; TAB and SP only right after a backslash
+ * </pre>
+ */
+public class EmailAddressValidator implements ConstraintValidator<EmailAddress, CharSequence> {
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return Objects.isNull(value) || isValidAddress(value);
+    }
+
+    public static boolean isValidAddress(CharSequence value) {
+        int length = value.length();
+        int at = length > 0 && value.charAt(0) == '"'
+                ? quotedString(value, length)
+                : dotAtom(value, length);
+        if (at < 0 || at >= length || value.charAt(at) != '@') {
+            return false;
+        }
+        int domain = at + 1;
+        if (domain < length && value.charAt(domain) == '[') {
+            return domainLiteral(value, domain + 1, length);
+        }
+        return hostname(value, domain, length);
+    }
+
+    /**
+     * @return index right after the dot-atom local part or -1
+     */
+    private static int dotAtom(CharSequence value, int length) {
+        int i = 0;
+        boolean atomStart = true;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (isAtext(c)) {
+                atomStart = false;
+            } else if (c == '.' && !atomStart) {
+                atomStart = true;
+            } else {
+                break;
+            }
+            i++;
+        }
+        return atomStart ? -1 : i;
+    }
+
+    /**
+     * @return index right after the closing quote of the local part or -1
+     */
+    private static int quotedString(CharSequence value, int length) {
+        int i = 1;
+        while (i < length) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                return i + 1;
+            }
+            if (c == '\\') {
+                if (i + 1 >= length || !isEscapable(value.charAt(i + 1))) {
+                    return -1;
+                }
+                i += 2;
+            } else if (isQtext(c)) {
+                i++;
+            } else {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hostname(CharSequence value, int from, int length) {
+        int labels = 0;
+        int i = from;
+        while (true) {
+            int end = label(value, i, length);
+            if (end < 0) {
+                return false;
+            }
+            labels++;
+            if (end == length) {
+                return labels >= 2;
+            }
+            if (value.charAt(end) != '.') {
+                return false;
+            }
+            i = end + 1;
+        }
+    }
+
+    /**
+     * @return index right after a label starting at {@code from} or -1
+     */
+    private static int label(CharSequence value, int from, int length) {
+        if (from >= length || !isLetterOrDigit(value.charAt(from))) {
+            return -1;
+        }
+        int i = from + 1;
+        while (i < length && (isLetterOrDigit(value.charAt(i)) || value.charAt(i) == '-')) {
+            i++;
+        }
+        return value.charAt(i - 1) == '-' ? -1 : i;
+    }
+
+    private static boolean domainLiteral(CharSequence value, int from, int length) {
+        if (value.charAt(length - 1) != ']') {
+            return false;
+        }
+        int end = length - 1;
+        int i = from;
+        for (int octet = 0; octet < 3; octet++) {
+            i = octet(value, i, end);
+            if (i < 0 || i >= end || value.charAt(i) != '.') {
+                return false;
+            }
+            i++;
+        }
+        if (octet(value, i, end) == end) {
+            return true;
+        }
+        return taggedContent(value, i, end);
+    }
+
+    /**
+     * @return index right after a decimal 0-255 of one to three digits or -1
+     */
+    private static int octet(CharSequence value, int from, int end) {
+        int i = from;
+        int number = 0;
+        while (i < end && i - from < 3 && isDigit(value.charAt(i))) {
+            number = number * 10 + value.charAt(i) - '0';
+            i++;
+        }
+        return i == from || number > 255 ? -1 : i;
+    }
+
+    private static boolean taggedContent(CharSequence value, int from, int end) {
+        int i = from;
+        while (i < end && (isLetterOrDigit(value.charAt(i)) || value.charAt(i) == '-')) {
+            i++;
+        }
+        if (i == from || i >= end || value.charAt(i) != ':' || value.charAt(i - 1) == '-') {
+            return false;
+        }
+        int contentStart = ++i;
+        if (contentStart == end) {
+            return false;
+        }
+        for (; i < end; i++) {
+            char c = value.charAt(i);
+            if (c == '\t' || c == ' ') {
+                if (i == contentStart || value.charAt(i - 1) != '\\') {
+                    return false;
+                }
+            } else if (!isEscapable(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAtext(char c) {
+        return isLetterOrDigit(c) || "!#$%&'*+/=?^_`{|}~-".indexOf(c) >= 0;
+    }
+
+    private static boolean isQtext(char c) {
+        return isEscapable(c) && c != '\t' && c != ' ' && c != '"' && c != '\\';
+    }
+
+    private static boolean isEscapable(char c) {
+        return c >= 0x01 && c <= 0x7f && c != '\n' && c != '\r';
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || isDigit(c);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
@@ -0,0 +1,19 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Async servlet mode; the request timeout itself is {@code spring.mvc.async.request-timeout}.
+ */
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.async")
+public class AsyncConfig {
+    private boolean enabled = false;
+    private int dbPoolSize = 10;
+    private int dbQueueCapacity = 100;
+}
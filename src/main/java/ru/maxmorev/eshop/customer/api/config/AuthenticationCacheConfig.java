@@ -0,0 +1,18 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.auth-cache")
+public class AuthenticationCacheConfig {
+    private boolean enabled = true;
+    private Duration ttl = Duration.ofSeconds(60);
+    private long maximumSize = 10_000;
+}
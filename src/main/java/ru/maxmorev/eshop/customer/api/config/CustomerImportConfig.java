@@ -0,0 +1,21 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.import")
+public class CustomerImportConfig {
+    /**
+     * Records validated, hashed and inserted in one transaction
+     */
+    private int chunkSize = 500;
+    /**
+     * Threads of the import's own hashing pool, shared by concurrent imports
+     */
+    private int hashingParallelism = 4;
+}
@@ -0,0 +1,25 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.idempotency")
+public class IdempotencyConfig {
+    private boolean enabled = true;
+    /**
+     * How long a completed response is replayed; should cover the gateway's retry window.
+     */
+    private Duration ttl = Duration.ofMinutes(10);
+    private long maximumSize = 10_000;
+    /**
+     * How long a duplicate waits for the first request with its key to complete.
+     */
+    private Duration duplicateWait = Duration.ofSeconds(30);
+}
@@ -0,0 +1,32 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.outbox")
+public class OutboxConfig {
+    /**
+     * Whether changes are written to the outbox at all.
+     */
+    private boolean enabled = true;
+    /**
+     * Whether this instance runs the relay; switched off to drain the outbox by hand.
+     */
+    private boolean relayEnabled = true;
+    private Duration relayInterval = Duration.ofSeconds(1);
+    private int batchSize = 100;
+    /**
+     * {@code application} publishes relayed events in-process, {@code file} appends them to {@link #file}.
+     */
+    private String sink = "application";
+    private Path file = Paths.get("customer-events.ndjson");
+}
@@ -0,0 +1,15 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.hashing")
+public class PasswordHashingConfig {
+    private int poolSize = 1;
+    private int queueCapacity = 16;
+}
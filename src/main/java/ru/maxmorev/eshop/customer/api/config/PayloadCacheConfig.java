@@ -0,0 +1,26 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.payload-cache")
+public class PayloadCacheConfig {
+    private boolean enabled = true;
+    /**
+     * Bound on the cached plain and gzip bytes together.
+     */
+    private DataSize maximumSize = DataSize.ofMegabytes(32);
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+    /**
+     * Payloads smaller than this are not compressed.
+     */
+    private DataSize gzipMinSize = DataSize.ofBytes(128);
+}
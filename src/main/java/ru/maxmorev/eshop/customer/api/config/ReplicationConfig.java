@@ -0,0 +1,37 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.replication")
+public class ReplicationConfig {
+
+    public enum Role {
+        NONE, PRIMARY, REPLICA
+    }
+
+    private Role role = Role.NONE;
+    /**
+     * Shared by the primary, which writes snapshots and change segments, and the replicas reading them.
+     */
+    private Path directory = Paths.get("/opt/micro/replication");
+    /**
+     * How often the primary writes changed customers, and the replicas look for them.
+     */
+    private Duration interval = Duration.ofSeconds(1);
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+    private int snapshotsKept = 2;
+    /**
+     * Base URL replicas redirect writes to with 307; without one writes are answered with 503.
+     */
+    private String primaryUrl;
+}
@@ -0,0 +1,137 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Startup report, active with {@code customer.startup.report=true}. Times every bean from instantiation
+ * to the end of its initialization and logs, once the application is ready, the JVM uptime and the
+ * {@code customer.startup.slowest-beans} beans with the most time of their own, i.e. without the
+ * dependencies created for them. Beans created by post processors ordered before this one, and lazy beans
+ * created after the application is ready, are not timed.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "customer.startup", name = "report", havingValue = "true")
+public class StartupTimeline implements InstantiationAwareBeanPostProcessor, PriorityOrdered,
+        EnvironmentAware, ApplicationListener<ApplicationReadyEvent> {
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class BeanTiming {
+        private final String name;
+        private final String type;
+        private final long selfNanos;
+        private final long totalNanos;
+    }
+
+    private static class Frame {
+        private final String name;
+        private final long started = System.nanoTime();
+        private long children;
+
+        Frame(String name) {
+            this.name = name;
+        }
+    }
+
+    private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+    private final List<BeanTiming> timings = Collections.synchronizedList(new ArrayList<>());
+    private int slowestBeans = 15;
+    private volatile List<BeanTiming> slowest = Collections.emptyList();
+    private volatile boolean ready;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        slowestBeans = environment.getProperty("customer.startup.slowest-beans", Integer.class, slowestBeans);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        if (!ready) {
+            creating.get().push(new Frame(beanName));
+        }
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Frame> frames = creating.get();
+        // frames of beans that failed or were short-circuited before initialization are dropped
+        for (Iterator<Frame> it = frames.iterator(); it.hasNext(); ) {
+            Frame frame = it.next();
+            if (!frame.name.equals(beanName)) {
+                continue;
+            }
+            while (frames.peek() != frame) {
+                frames.pop();
+            }
+            frames.pop();
+            long total = System.nanoTime() - frame.started;
+            if (Objects.nonNull(frames.peek())) {
+                frames.peek().children += total;
+            }
+            timings.add(new BeanTiming(beanName, bean.getClass().getName(), total - frame.children, total));
+            break;
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ready = true;
+        creating.remove();
+        long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+        synchronized (timings) {
+            slowest = timings.stream()
+                    .sorted(Comparator.comparingLong(BeanTiming::getSelfNanos).reversed())
+                    .limit(slowestBeans)
+                    .collect(Collectors.toList());
+        }
+        StringBuilder report = new StringBuilder()
+                .append(String.format("Ready after %d ms of JVM uptime, %d beans timed, slowest:%n", uptime, timings.size()))
+                .append(String.format("%10s %10s  %s%n", "self ms", "total ms", "bean"));
+        for (BeanTiming timing : slowest) {
+            report.append(String.format("%10d %10d  %s (%s)%n",
+                    TimeUnit.NANOSECONDS.toMillis(timing.selfNanos),
+                    TimeUnit.NANOSECONDS.toMillis(timing.totalNanos),
+                    timing.name, timing.type));
+        }
+        log.info(report.toString());
+    }
+
+    /**
+     * @return the slowest beans by own time, filled in when the application is ready
+     */
+    public List<BeanTiming> getSlowest() {
+        return slowest;
+    }
+
+}
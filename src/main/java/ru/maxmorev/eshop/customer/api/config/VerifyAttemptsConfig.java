@@ -0,0 +1,18 @@
+package ru.maxmorev.eshop.customer.api.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "customer.verify")
+public class VerifyAttemptsConfig {
+    private int maxAttempts = 5;
+    private Duration lockout = Duration.ofMinutes(15);
+    private long maximumSize = 100_000;
+}
@@ -4,5 +4,7 @@ public interface Constants {
 
     String ID_GENERATOR_CUSTOMER = "ID_GENERATOR_CUSTOMER";
     String ID_GENERATOR_CUSTOMER_SEQUENCE_NAME = "RES_SEQUENCE_CUSTOMER";
+    String ID_GENERATOR_OUTBOX = "ID_GENERATOR_OUTBOX";
+    String ID_GENERATOR_OUTBOX_SEQUENCE_NAME = "RES_SEQUENCE_OUTBOX";
 
 }
@@ -1,8 +1,8 @@
 package ru.maxmorev.eshop.customer.api.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -10,32 +10,42 @@ import lombok.Setter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
+import ru.maxmorev.eshop.customer.api.util.LogRenderer;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.Index;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
 import javax.validation.constraints.NotBlank;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.EnumSet;
 import java.util.Objects;
-import java.util.Set;
 
 @Getter
 @Setter
 @Entity
+@org.hibernate.annotations.DynamicUpdate
 @NoArgsConstructor
-@Table(name = "customer")
-@JsonIgnoreProperties(ignoreUnknown = true)
+@Table(name = "customer", indexes = {
+        @Index(name = "idx_customer_created", columnList = "date_of_creation, id"),
+        @Index(name = "idx_customer_verified", columnList = "verified, id"),
+        @Index(name = "idx_customer_country", columnList = "country, id")
+})
+@JsonIgnoreProperties(value = "authorities", allowGetters = true, ignoreUnknown = true)
 public class Customer extends CustomerInfo implements UserDetails {
 
     @NotBlank(message = "{validation.customer.password}")
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(nullable = false, length = 256)
     private String password;
 
+    /**
+     * Only ever sent by email; never returned, so that verifying proves control of the address.
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(name = "verifycode", nullable = false, length = 256)
     private String verifyCode;
 
@@ -50,40 +60,84 @@ public class Customer extends CustomerInfo implements UserDetails {
     @Column(name = "shopping_cart_id")
     private Long shoppingCartId;
 
-    @Column(name = "authorities", nullable = false)
-    private String authorities;
+    /**
+     * @see CustomerAuthorities
+     */
+    @JsonIgnore
+    @Column(name = "authority_mask", nullable = false, columnDefinition = "integer default 0")
+    private int authorityMask;
 
     @Builder
     public Customer(Long id, @NotBlank(message = "{validation.customer.email}") String email, @NotBlank(message = "{validation.customer.fullName}") String fullName, @NotBlank(message = "{validation.customer.country}") String country, @NotBlank(message = "{validation.customer.postcode}") String postcode, @NotBlank(message = "{validation.customer.city}") String city, @NotBlank(message = "{validation.customer.address}") String address, @NotBlank(message = "{validation.customer.password}") String password, String verifyCode, String authorities) {
         super(id, email, fullName, country, postcode, city, address);
         this.password = password;
         this.verifyCode = verifyCode;
-        this.authorities = authorities;
+        this.authorityMask = CustomerAuthorities.parse(authorities);
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        Set<CustomerAuthority> authSet = new HashSet<>();
-        if (Objects.isNull(authorities))
-            return null;
-        Arrays.asList(authorities.split(","))
-                .forEach(str ->
-                        authSet.add(new CustomerAuthority(AuthorityValues.valueOf(str))));
-        return authSet;
+        return CustomerAuthorities.granted(authorityMask);
+    }
+
+    @JsonIgnore
+    public EnumSet<AuthorityValues> getAuthorityValues() {
+        return CustomerAuthorities.toSet(authorityMask);
+    }
+
+    public boolean hasAuthority(AuthorityValues auth) {
+        return (authorityMask & CustomerAuthorities.bit(auth)) != 0;
     }
 
     public void addAuthority(AuthorityValues auth) {
-        if (Objects.isNull(authorities)) {
-            authorities = auth.name();
-            return;
-        }
-        Collection<? extends GrantedAuthority> authSet = getAuthorities();
-        if (authSet.contains(new CustomerAuthority(auth))) return;
-        authorities += "," + auth.name();
+        authorityMask |= CustomerAuthorities.bit(auth);
     }
 
     public void removeAllAuthorities() {
-        this.authorities = null;
+        this.authorityMask = 0;
+    }
+
+    /**
+     * Copies the editable address fields of {@code info}, leaving unchanged ones untouched so that
+     * the dynamic update only writes what differs.
+     * @return {@code true} if any field changed
+     */
+    public boolean updateInfo(CustomerInfo info) {
+        boolean changed = false;
+        if (!Objects.equals(getFullName(), info.getFullName())) {
+            setFullName(info.getFullName());
+            changed = true;
+        }
+        if (!Objects.equals(getCountry(), info.getCountry())) {
+            setCountry(info.getCountry());
+            changed = true;
+        }
+        if (!Objects.equals(getPostcode(), info.getPostcode())) {
+            setPostcode(info.getPostcode());
+            changed = true;
+        }
+        if (!Objects.equals(getCity(), info.getCity())) {
+            setCity(info.getCity());
+            changed = true;
+        }
+        if (!Objects.equals(getAddress(), info.getAddress())) {
+            setAddress(info.getAddress());
+            changed = true;
+        }
+        return changed;
+    }
+
+    /**
+     * @return detached field-by-field copy of this customer
+     */
+    public Customer copy() {
+        Customer copy = new Customer(getId(), getEmail(), getFullName(), getCountry(), getPostcode(), getCity(), getAddress(), password, verifyCode, null);
+        copy.setAuthorityMask(authorityMask);
+        copy.setVersion(getVersion());
+        copy.setDateOfCreation(Objects.isNull(dateOfCreation) ? null : new Date(dateOfCreation.getTime()));
+        copy.setVerified(verified);
+        copy.setShoppingCartId(shoppingCartId);
+        return copy;
     }
 
     @Override
@@ -113,12 +167,7 @@ public class Customer extends CustomerInfo implements UserDetails {
 
     @Override
     public String toString() {
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            return mapper.writeValueAsString(this);
-        } catch (JsonProcessingException e) {
-            return e.getMessage();
-        }
+        return LogRenderer.render(this);
     }
 
     @Override
@@ -131,7 +180,7 @@ public class Customer extends CustomerInfo implements UserDetails {
                 java.util.Objects.equals(getVerifyCode(), customer.getVerifyCode()) &&
                 getDateOfCreation().equals(customer.getDateOfCreation()) &&
                 java.util.Objects.equals(getVerified(), customer.getVerified()) &&
-                java.util.Objects.equals(getAuthorities(), customer.getAuthorities());
+                getAuthorityMask() == customer.getAuthorityMask();
     }
 
     @Override
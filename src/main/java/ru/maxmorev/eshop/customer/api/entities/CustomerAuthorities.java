@@ -0,0 +1,91 @@
+package ru.maxmorev.eshop.customer.api.entities;
+
+import org.apache.commons.lang3.StringUtils;
+import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Bitmask encoding of a customer's {@link AuthorityValues}: bit {@code 1 << ordinal()} is set per granted value,
+ * so enum constants must only ever be appended, never reordered.
+ * Every possible mask maps to a shared immutable set of singleton {@link CustomerAuthority} instances,
+ * which keeps {@link Customer#getAuthorities()} allocation-free.
+ */
+public final class CustomerAuthorities {
+
+    private static final AuthorityValues[] VALUES = AuthorityValues.values();
+    private static final CustomerAuthority[] AUTHORITIES = new CustomerAuthority[VALUES.length];
+    private static final Set<CustomerAuthority>[] BY_MASK;
+
+    static {
+        for (AuthorityValues value : VALUES) {
+            AUTHORITIES[value.ordinal()] = new CustomerAuthority(value);
+        }
+        @SuppressWarnings("unchecked")
+        Set<CustomerAuthority>[] byMask = new Set[1 << VALUES.length];
+        for (int mask = 0; mask < byMask.length; mask++) {
+            Set<CustomerAuthority> set = new LinkedHashSet<>();
+            for (AuthorityValues value : VALUES) {
+                if ((mask & bit(value)) != 0) {
+                    set.add(AUTHORITIES[value.ordinal()]);
+                }
+            }
+            byMask[mask] = Collections.unmodifiableSet(set);
+        }
+        BY_MASK = byMask;
+    }
+
+    private CustomerAuthorities() {
+    }
+
+    public static int bit(AuthorityValues value) {
+        return 1 << value.ordinal();
+    }
+
+    public static CustomerAuthority of(AuthorityValues value) {
+        return AUTHORITIES[value.ordinal()];
+    }
+
+    public static Set<CustomerAuthority> granted(int mask) {
+        return BY_MASK[mask & (BY_MASK.length - 1)];
+    }
+
+    public static EnumSet<AuthorityValues> toSet(int mask) {
+        EnumSet<AuthorityValues> set = EnumSet.noneOf(AuthorityValues.class);
+        for (AuthorityValues value : VALUES) {
+            if ((mask & bit(value)) != 0) {
+                set.add(value);
+            }
+        }
+        return set;
+    }
+
+    public static int toMask(Set<AuthorityValues> values) {
+        int mask = 0;
+        for (AuthorityValues value : values) {
+            mask |= bit(value);
+        }
+        return mask;
+    }
+
+    /**
+     * @param authorities legacy comma separated representation, e.g. {@code "CUSTOMER,ADMIN"}
+     */
+    public static int parse(String authorities) {
+        int mask = 0;
+        if (Objects.isNull(authorities)) {
+            return mask;
+        }
+        for (String name : authorities.split(",")) {
+            if (StringUtils.isNotBlank(name)) {
+                mask |= bit(AuthorityValues.valueOf(name.trim()));
+            }
+        }
+        return mask;
+    }
+
+}
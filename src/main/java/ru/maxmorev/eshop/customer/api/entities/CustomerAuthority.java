@@ -6,6 +6,9 @@ import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
 
 import java.util.Objects;
 
+/**
+ * Immutable; shared instances per value are available from {@link CustomerAuthorities#of(AuthorityValues)}.
+ */
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class CustomerAuthority implements GrantedAuthority {
 
@@ -0,0 +1,10 @@
+package ru.maxmorev.eshop.customer.api.entities;
+
+/**
+ * Kinds of {@link OutboxEvent} relayed to other services.
+ */
+public enum CustomerEventType {
+    CUSTOMER_CREATED,
+    CUSTOMER_VERIFIED,
+    CUSTOMER_INFO_UPDATED
+}
@@ -1,35 +1,31 @@
 package ru.maxmorev.eshop.customer.api.entities;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import ru.maxmorev.eshop.customer.api.annotation.EmailAddress;
+import ru.maxmorev.eshop.customer.api.util.LogRenderer;
 
 import javax.persistence.Column;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
-import javax.validation.constraints.Email;
+import javax.persistence.Version;
 import javax.validation.constraints.NotBlank;
 import java.util.Objects;
 
 @Getter
 @Setter
 @MappedSuperclass
-@AllArgsConstructor
 @NoArgsConstructor
 public class CustomerInfo {
 
-    private static final String emailRFC2822 = "(?:[a-z0-9!#$%&'*+/=?^_`{|}~-]+(?:\\.[a-z0-9!#$%&'*+/=?^_`{|}~-]+)*|\"(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21\\x23-\\x5b\\x5d-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])*\")@(?:(?:[a-z0-9](?:[a-z0-9-]*[a-z0-9])?\\.)+[a-z0-9](?:[a-z0-9-]*[a-z0-9])?|\\[(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?|[a-z0-9-]*[a-z0-9]:(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21-\\x5a\\x53-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])+)\\])";
-
     @Id
     @GeneratedValue(generator = Constants.ID_GENERATOR_CUSTOMER)
     @Column(updatable = false)
     protected Long id;
 
-    @Email(regexp = emailRFC2822, message = "{validation.email.format}")
+    @EmailAddress(message = "{validation.email.format}")
     @NotBlank(message = "{validation.customer.email}")
     @Column(nullable = false, length = 256, unique = true)
     private String email;
@@ -54,14 +50,26 @@ public class CustomerInfo {
     @Column(nullable = false, length = 256)
     private String address;
 
+    /**
+     * Optimistic lock. Sent back with an update it must match the stored version, {@code null} skips that check.
+     */
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+
+    public CustomerInfo(Long id, String email, String fullName, String country, String postcode, String city, String address) {
+        this.id = id;
+        this.email = email;
+        this.fullName = fullName;
+        this.country = country;
+        this.postcode = postcode;
+        this.city = city;
+        this.address = address;
+    }
+
     @Override
     public String toString() {
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            return mapper.writeValueAsString(this);
-        } catch (JsonProcessingException e) {
-            return e.getMessage();
-        }
+        return LogRenderer.render(this);
     }
 
     @Override
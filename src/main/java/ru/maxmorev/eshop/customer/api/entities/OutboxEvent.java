@@ -0,0 +1,69 @@
+package ru.maxmorev.eshop.customer.api.entities;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import ru.maxmorev.eshop.customer.api.util.LogRenderer;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.Lob;
+import javax.persistence.Table;
+import javax.persistence.Temporal;
+import javax.persistence.TemporalType;
+import java.util.Date;
+
+/**
+ * Customer change written in the transaction of the change itself and deleted once relayed.
+ * Ids grow in insertion order, which is the delivery order.
+ *
+ * @see ru.maxmorev.eshop.customer.api.service.OutboxRelay
+ */
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@Table(name = "customer_outbox")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(generator = Constants.ID_GENERATOR_OUTBOX)
+    @Column(updatable = false)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false, updatable = false)
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32, updatable = false)
+    private CustomerEventType type;
+
+    /**
+     * {@link ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO} as JSON, including the row version
+     * consumers can use to drop redelivered or outdated events.
+     */
+    @Lob
+    @Column(nullable = false, updatable = false)
+    private String payload;
+
+    @Temporal(TemporalType.TIMESTAMP)
+    @Column(name = "created_at", nullable = false, updatable = false)
+    @org.hibernate.annotations.CreationTimestamp
+    private Date createdAt;
+
+    public OutboxEvent(Long customerId, CustomerEventType type, String payload) {
+        this.customerId = customerId;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    @Override
+    public String toString() {
+        return LogRenderer.render(this);
+    }
+
+}
@@ -25,6 +25,27 @@
                                 name = "optimizer",
                                 value = "pooled-lo"
                         )
+                }),
+        @GenericGenerator(
+                name = Constants.ID_GENERATOR_OUTBOX,
+                strategy = "enhanced-sequence",
+                parameters = {
+                        @Parameter(
+                                name = "sequence_name",
+                                value = Constants.ID_GENERATOR_OUTBOX_SEQUENCE_NAME
+                        ),
+                        @Parameter(
+                                name = "initial_value",
+                                value = "1"
+                        ),
+                        @Parameter(
+                                name = "increment_size",
+                                value = "100"
+                        ),
+                        @Parameter(
+                                name = "optimizer",
+                                value = "pooled-lo"
+                        )
                 })
 })
 
@@ -0,0 +1,18 @@
+package ru.maxmorev.eshop.customer.api.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * Optional restrictions of the admin customer listing, {@code null} means not restricted.
+ */
+@Getter
+@Builder
+public class CustomerFilter {
+    private final Boolean verified;
+    private final String country;
+    private final Date createdFrom;
+    private final Date createdTo;
+}
@@ -0,0 +1,31 @@
+package ru.maxmorev.eshop.customer.api.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Position of the last row of a listing page in one of the supported orders.
+ * The next page starts strictly after it, so no rows are skipped with OFFSET.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CustomerKeyset {
+
+    public enum Order {
+        /**
+         * {@code id} ascending, backed by the primary key
+         */
+        ID,
+        /**
+         * {@code date_of_creation, id} descending (newest first), backed by {@code idx_customer_created}
+         */
+        CREATED
+    }
+
+    private final Order order;
+    private final Long id;
+    private final Date dateOfCreation;
+
+}
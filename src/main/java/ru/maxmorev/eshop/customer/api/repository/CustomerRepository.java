@@ -1,12 +1,73 @@
 package ru.maxmorev.eshop.customer.api.repository;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.stereotype.Repository;
 import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface CustomerRepository extends CrudRepository<Customer, Long> {
+@RepositoryRestResource(exported = false)
+public interface CustomerRepository extends CrudRepository<Customer, Long>, CustomerRepositoryCustom {
     Optional<Customer> findByEmail(String email);
+
+    boolean existsByEmail(String email);
+
+    String PUBLIC_VIEW = "select new ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO(" +
+            "c.id, c.email, c.fullName, c.country, c.postcode, c.city, c.address, c.version) from Customer c ";
+
+    /**
+     * Selects only the public columns straight into an unmanaged {@link CustomerDTO}.
+     */
+    @Query(PUBLIC_VIEW + "where c.id = :id")
+    Optional<CustomerDTO> findViewById(@Param("id") Long id);
+
+    @Query(PUBLIC_VIEW + "where c.email = :email")
+    Optional<CustomerDTO> findViewByEmail(@Param("email") String email);
+
+    @Query("select new ru.maxmorev.eshop.customer.api.repository.CustomerVersion(c.id, c.version) from Customer c where c.id = :id")
+    Optional<CustomerVersion> findVersionById(@Param("id") Long id);
+
+    @Query("select new ru.maxmorev.eshop.customer.api.repository.CustomerVersion(c.id, c.version) from Customer c where c.email = :email")
+    Optional<CustomerVersion> findVersionByEmail(@Param("email") String email);
+
+    @Query(PUBLIC_VIEW + "where c.id in :ids")
+    List<CustomerDTO> findViewsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(PUBLIC_VIEW + "where c.email in :emails")
+    List<CustomerDTO> findViewsByEmails(@Param("emails") Collection<String> emails);
+
+    @Query("select c.email from Customer c where c.email in :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Forward-only cursor over all customers in id order; must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Query("select c from Customer c order by c.id")
+    Stream<Customer> streamAll();
+
+    @QueryHints(@QueryHint(name = HINT_READONLY, value = "true"))
+    @Query("select c.email from Customer c")
+    Stream<String> streamEmails();
+
+    /**
+     * Single conditional update; the code is compared by the database and nothing is loaded.
+     * @return 1 if the customer was unverified and the code matched, 0 otherwise
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Customer c set c.verified = true, c.version = c.version + 1 where c.id = :id and c.verifyCode = :code and c.verified = false")
+    int markVerified(@Param("id") Long id, @Param("code") String code);
 }
@@ -0,0 +1,15 @@
+package ru.maxmorev.eshop.customer.api.repository;
+
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+
+import java.util.List;
+
+public interface CustomerRepositoryCustom {
+
+    /**
+     * Seek pagination: rows matching {@code filter} that come after {@code after} in {@code order}.
+     * @param after last row of the previous page, {@code null} for the first page
+     */
+    List<Customer> findPage(CustomerFilter filter, CustomerKeyset.Order order, CustomerKeyset after, int limit);
+
+}
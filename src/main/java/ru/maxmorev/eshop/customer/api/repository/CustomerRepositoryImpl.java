@@ -0,0 +1,67 @@
+package ru.maxmorev.eshop.customer.api.repository;
+
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
+public class CustomerRepositoryImpl implements CustomerRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<Customer> findPage(CustomerFilter filter, CustomerKeyset.Order order, CustomerKeyset after, int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Customer> query = cb.createQuery(Customer.class);
+        Root<Customer> c = query.from(Customer.class);
+        Path<Long> id = c.get("id");
+        Path<Date> dateOfCreation = c.get("dateOfCreation");
+
+        List<Predicate> where = new ArrayList<>();
+        if (Objects.nonNull(filter.getVerified())) {
+            where.add(cb.equal(c.get("verified"), filter.getVerified()));
+        }
+        if (Objects.nonNull(filter.getCountry())) {
+            where.add(cb.equal(c.get("country"), filter.getCountry()));
+        }
+        if (Objects.nonNull(filter.getCreatedFrom())) {
+            where.add(cb.greaterThanOrEqualTo(dateOfCreation, filter.getCreatedFrom()));
+        }
+        if (Objects.nonNull(filter.getCreatedTo())) {
+            where.add(cb.lessThan(dateOfCreation, filter.getCreatedTo()));
+        }
+
+        if (order == CustomerKeyset.Order.CREATED) {
+            if (Objects.nonNull(after)) {
+                where.add(cb.or(
+                        cb.lessThan(dateOfCreation, after.getDateOfCreation()),
+                        cb.and(cb.equal(dateOfCreation, after.getDateOfCreation()), cb.lessThan(id, after.getId()))));
+            }
+            query.orderBy(cb.desc(dateOfCreation), cb.desc(id));
+        } else {
+            if (Objects.nonNull(after)) {
+                where.add(cb.greaterThan(id, after.getId()));
+            }
+            query.orderBy(cb.asc(id));
+        }
+
+        query.select(c).where(where.toArray(new Predicate[0]));
+        return em.createQuery(query)
+                .setHint(HINT_READONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+}
@@ -0,0 +1,14 @@
+package ru.maxmorev.eshop.customer.api.repository;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Identity and optimistic lock version of a customer row, all a conditional GET needs to compare ETags.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CustomerVersion {
+    private final Long id;
+    private final Long version;
+}
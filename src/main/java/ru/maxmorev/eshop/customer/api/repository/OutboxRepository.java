@@ -0,0 +1,23 @@
+package ru.maxmorev.eshop.customer.api.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import ru.maxmorev.eshop.customer.api.entities.OutboxEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+@RepositoryRestResource(exported = false)
+public interface OutboxRepository extends CrudRepository<OutboxEvent, Long> {
+
+    List<OutboxEvent> findByOrderByIdAsc(Pageable pageable);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteByIds(@Param("ids") Collection<Long> ids);
+
+}
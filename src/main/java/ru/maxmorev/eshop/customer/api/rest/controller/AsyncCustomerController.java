@@ -0,0 +1,121 @@
+package ru.maxmorev.eshop.customer.api.rest.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerVerify;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerView;
+import ru.maxmorev.eshop.customer.api.service.CustomerService;
+import ru.maxmorev.eshop.customer.api.service.DatabaseExecutor;
+import ru.maxmorev.eshop.customer.api.service.IdempotentRequests;
+import ru.maxmorev.eshop.customer.api.service.PasswordHasher;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.security.Principal;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Async counterpart of {@link CustomerController}, active with {@code customer.async.enabled=true}.
+ * Signups run on the {@link PasswordHasher} pool, everything else on the {@link DatabaseExecutor};
+ * the servlet thread is released as soon as the work is queued. Requests that do not complete within
+ * {@code spring.mvc.async.request-timeout} are answered with 503.
+ */
+@Slf4j
+@RestController
+@Lazy(false)
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "customer.async", name = "enabled", havingValue = "true")
+public class AsyncCustomerController {
+
+    private final CustomerService customerService;
+    private final PasswordHasher passwordHasher;
+    private final DatabaseExecutor databaseExecutor;
+    private final CustomerReader customerReader;
+    private final IdempotentRequests idempotentRequests;
+    private final MessageSource messageSource;
+
+    @RequestMapping(path = "/customer/", method = RequestMethod.POST)
+    @ResponseBody
+    public CompletableFuture<Customer> createCustomer(@RequestBody @Valid Customer customer,
+                                                      @RequestHeader(name = IdempotentRequests.HEADER, required = false) String idempotencyKey,
+                                                      Principal principal,
+                                                      HttpServletRequest servletRequest,
+                                                      Locale locale) {
+        log.info("Customer : {}", customer);
+        String caller = IdempotentRequests.caller(principal, servletRequest.getRemoteAddr());
+        return idempotentRequests.submit("createCustomer", caller, idempotencyKey, customer,
+                () -> passwordHasher.submit(() -> customerService.createCustomerAndVerifyByEmail(customer)));
+    }
+
+    @RequestMapping(path = "/admin/", method = RequestMethod.POST)
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @ResponseBody
+    public CompletableFuture<Customer> createAdmin(@RequestBody @Valid Customer customer, Locale locale) {
+        log.info("Customer : {}", customer);
+        return passwordHasher.submit(() -> customerService.createAdminAndVerifyByEmail(customer));
+    }
+
+    @RequestMapping(path = "/update/", method = RequestMethod.PUT)
+    @ResponseBody
+    public CompletableFuture<Customer> updateCustomer(@RequestBody @Valid CustomerInfo customer, Locale locale) {
+        log.info("Customer update : {}", customer);
+        return databaseExecutor.submit(() -> customerService.updateInfo(customer));
+    }
+
+    @RequestMapping(path = "/customer/verify/", method = RequestMethod.POST)
+    @ResponseBody
+    public CompletableFuture<CustomerVerify> verifyCustomer(@RequestBody @Valid CustomerVerify customerVerify,
+                                                            @RequestHeader(name = IdempotentRequests.HEADER, required = false) String idempotencyKey,
+                                                            Principal principal,
+                                                            HttpServletRequest servletRequest,
+                                                            Locale locale) {
+        log.info("CustomerVerify : {}", customerVerify);
+        String caller = IdempotentRequests.caller(principal, servletRequest.getRemoteAddr());
+        return idempotentRequests.submit("verifyCustomer", caller, idempotencyKey, customerVerify, () -> databaseExecutor.submit(() -> {
+            Customer customer = customerService
+                    .verify(customerVerify.getId(), customerVerify.getVerifyCode())
+                    .orElseThrow(() -> new UsernameNotFoundException(messageSource.getMessage("customer.error.notFound", new Object[]{customerVerify.getId()}, locale)));
+            customerVerify.setVerified(customer.getVerified());
+            return customerVerify;
+        }));
+    }
+
+    @RequestMapping(path = "/customer/email/{email}", method = RequestMethod.GET)
+    public CompletableFuture<ResponseEntity<Object>> findByEmail(@PathVariable(name = "email") String email,
+                                                                 @RequestParam(name = "view", defaultValue = "public") String view,
+                                                                 @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                                 @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                                 Locale locale) {
+        CustomerView customerView = CustomerView.of(view);
+        return databaseExecutor.submit(() -> customerReader.byEmail(email, customerView, ifNoneMatch, acceptEncoding, locale));
+    }
+
+    @RequestMapping(path = "/customer/id/{id}", method = RequestMethod.GET)
+    public CompletableFuture<ResponseEntity<Object>> findById(@PathVariable(name = "id") Long id,
+                                                              @RequestParam(name = "view", defaultValue = "public") String view,
+                                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                              @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                                              Locale locale) {
+        CustomerView customerView = CustomerView.of(view);
+        return databaseExecutor.submit(() -> customerReader.byId(id, customerView, ifNoneMatch, acceptEncoding, locale));
+    }
+
+}
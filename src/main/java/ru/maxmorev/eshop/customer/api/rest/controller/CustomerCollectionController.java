@@ -0,0 +1,92 @@
+package ru.maxmorev.eshop.customer.api.rest.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RestController;
+import ru.maxmorev.eshop.customer.api.repository.CustomerFilter;
+import ru.maxmorev.eshop.customer.api.repository.CustomerKeyset;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerLookup;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerLookupResult;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerPage;
+import ru.maxmorev.eshop.customer.api.service.CustomerExportService;
+import ru.maxmorev.eshop.customer.api.service.CustomerImportService;
+import ru.maxmorev.eshop.customer.api.service.CustomerListingService;
+import ru.maxmorev.eshop.customer.api.service.CustomerLookupService;
+import ru.maxmorev.eshop.customer.api.service.CustomerService;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Bulk, listing, multi-get and existence endpoints. They stream or answer cheaply, so they are served
+ * the same way whether or not {@code customer.async.enabled} is set.
+ */
+@RestController
+@RequiredArgsConstructor
+public class CustomerCollectionController {
+
+    private final CustomerService customerService;
+    private final CustomerImportService customerImportService;
+    private final CustomerExportService customerExportService;
+    private final CustomerListingService customerListingService;
+    private final CustomerLookupService customerLookupService;
+
+    @RequestMapping(path = "/customer/batch", method = RequestMethod.POST, consumes = CustomerImportService.NDJSON)
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'REMOTE')")
+    public void importCustomers(InputStream body, HttpServletResponse response) throws IOException {
+        response.setContentType(CustomerImportService.NDJSON);
+        customerImportService.importCustomers(body, response.getOutputStream());
+    }
+
+    @RequestMapping(path = "/customers", method = RequestMethod.GET)
+    @ResponseBody
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'REMOTE')")
+    public CustomerPage listCustomers(@RequestParam(name = "after", required = false) String after,
+                                      @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                      @RequestParam(name = "sort", defaultValue = "id") String sort,
+                                      @RequestParam(name = "verified", required = false) Boolean verified,
+                                      @RequestParam(name = "country", required = false) String country,
+                                      @RequestParam(name = "createdFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date createdFrom,
+                                      @RequestParam(name = "createdTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date createdTo) {
+        CustomerFilter filter = CustomerFilter.builder()
+                .verified(verified)
+                .country(country)
+                .createdFrom(createdFrom)
+                .createdTo(createdTo)
+                .build();
+        return customerListingService.list(filter, CustomerKeyset.Order.valueOf(sort.toUpperCase(Locale.ROOT)), after, limit);
+    }
+
+    @RequestMapping(path = "/customers/lookup", method = RequestMethod.POST)
+    @ResponseBody
+    public CustomerLookupResult lookupCustomers(@RequestBody CustomerLookup lookup) {
+        return customerLookupService.lookup(lookup);
+    }
+
+    @RequestMapping(path = "/customers/export", method = RequestMethod.GET)
+    @PreAuthorize("hasAnyAuthority('ADMIN', 'REMOTE')")
+    public void exportCustomers(@RequestParam(name = "format", defaultValue = "ndjson") String format, HttpServletResponse response) throws IOException {
+        CustomerExportService.Format exportFormat = CustomerExportService.Format.of(format);
+        response.setContentType(exportFormat.getContentType());
+        customerExportService.export(exportFormat, response.getOutputStream());
+    }
+
+    @RequestMapping(path = "/customer/email/{email}", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> customerExists(@PathVariable(name = "email") String email) {
+        return customerService.existsByEmail(email)
+                ? ResponseEntity.ok().build()
+                : ResponseEntity.notFound().build();
+    }
+
+}
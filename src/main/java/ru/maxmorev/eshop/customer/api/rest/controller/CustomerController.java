@@ -2,44 +2,66 @@ package ru.maxmorev.eshop.customer.api.rest.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 import ru.maxmorev.eshop.customer.api.entities.Customer;
 import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
 import ru.maxmorev.eshop.customer.api.rest.request.CustomerVerify;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerView;
 import ru.maxmorev.eshop.customer.api.service.CustomerService;
+import ru.maxmorev.eshop.customer.api.service.IdempotentRequests;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.security.Principal;
 import java.util.Locale;
 
+/**
+ * Synchronous handlers of the customer endpoints, active unless {@code customer.async.enabled}.
+ *
+ * @see AsyncCustomerController
+ */
 @Slf4j
-@Transactional
 @RestController
+@Lazy(false)
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "customer.async", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerReader customerReader;
+    private final IdempotentRequests idempotentRequests;
     private final MessageSource messageSource;
 
     @RequestMapping(path = "/customer/", method = RequestMethod.POST)
     @ResponseBody
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public Customer createCustomer(@RequestBody @Valid Customer customer, Locale locale) {
+    public Customer createCustomer(@RequestBody @Valid Customer customer,
+                                   @RequestHeader(name = IdempotentRequests.HEADER, required = false) String idempotencyKey,
+                                   Principal principal,
+                                   HttpServletRequest servletRequest,
+                                   Locale locale) {
         log.info("Customer : {}", customer);
-        return customerService.createCustomerAndVerifyByEmail(customer);
+        String caller = IdempotentRequests.caller(principal, servletRequest.getRemoteAddr());
+        return idempotentRequests.call("createCustomer", caller, idempotencyKey, customer,
+                () -> customerService.createCustomerAndVerifyByEmail(customer));
     }
 
     @RequestMapping(path = "/admin/", method = RequestMethod.POST)
+    @PreAuthorize("hasAuthority('ADMIN')")
     @ResponseBody
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Customer createAdmin(@RequestBody @Valid Customer customer, Locale locale) {
         log.info("Customer : {}", customer);
         return customerService.createAdminAndVerifyByEmail(customer);
@@ -47,7 +69,6 @@ public class CustomerController {
 
     @RequestMapping(path = "/update/", method = RequestMethod.PUT)
     @ResponseBody
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Customer updateCustomer(@RequestBody @Valid CustomerInfo customer, Locale locale) {
         log.info("Customer update : {}", customer);
         Customer findByEmail = customerService.updateInfo(customer);
@@ -56,30 +77,38 @@ public class CustomerController {
 
     @RequestMapping(path = "/customer/verify/", method = RequestMethod.POST)
     @ResponseBody
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public CustomerVerify verifyCustomer(@RequestBody @Valid CustomerVerify customerVerify, Locale locale) {
+    public CustomerVerify verifyCustomer(@RequestBody @Valid CustomerVerify customerVerify,
+                                         @RequestHeader(name = IdempotentRequests.HEADER, required = false) String idempotencyKey,
+                                         Principal principal,
+                                         HttpServletRequest servletRequest,
+                                         Locale locale) {
         log.info("CustomerVerify : {}", customerVerify);
-        Customer customer = customerService
-                .verify(customerVerify.getId(), customerVerify.getVerifyCode())
-                .orElseThrow(() -> new UsernameNotFoundException(messageSource.getMessage("customer.error.notFound", new Object[]{customerVerify.getId()}, locale)));
-        customerVerify.setVerified(customer.getVerified());
-        return customerVerify;
+        String caller = IdempotentRequests.caller(principal, servletRequest.getRemoteAddr());
+        return idempotentRequests.call("verifyCustomer", caller, idempotencyKey, customerVerify, () -> {
+            Customer customer = customerService
+                    .verify(customerVerify.getId(), customerVerify.getVerifyCode())
+                    .orElseThrow(() -> new UsernameNotFoundException(messageSource.getMessage("customer.error.notFound", new Object[]{customerVerify.getId()}, locale)));
+            customerVerify.setVerified(customer.getVerified());
+            return customerVerify;
+        });
     }
 
     @RequestMapping(path = "/customer/email/{email}", method = RequestMethod.GET)
-    @ResponseBody
-    public Customer findByEmail(@PathVariable(name = "email") String email, Locale locale) {
-        return customerService
-                .findByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException(messageSource.getMessage("customer.error.notFound.email", new Object[]{email}, locale)));
+    public ResponseEntity<Object> findByEmail(@PathVariable(name = "email") String email,
+                                              @RequestParam(name = "view", defaultValue = "public") String view,
+                                              @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                              Locale locale) {
+        return customerReader.byEmail(email, CustomerView.of(view), ifNoneMatch, acceptEncoding, locale);
     }
 
     @RequestMapping(path = "/customer/id/{id}", method = RequestMethod.GET)
-    @ResponseBody
-    public Customer findById(@PathVariable(name = "id") Long id, Locale locale) {
-        return customerService
-                .findById(id)
-                .orElseThrow(() -> new UsernameNotFoundException(messageSource.getMessage("customer.error.notFound.email", new Object[]{id}, locale)));
+    public ResponseEntity<Object> findById(@PathVariable(name = "id") Long id,
+                                           @RequestParam(name = "view", defaultValue = "public") String view,
+                                           @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                           @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                           Locale locale) {
+        return customerReader.byId(id, CustomerView.of(view), ifNoneMatch, acceptEncoding, locale);
     }
 
 }
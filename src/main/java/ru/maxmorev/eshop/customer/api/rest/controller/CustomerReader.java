@@ -0,0 +1,173 @@
+package ru.maxmorev.eshop.customer.api.rest.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.MessageSource;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Component;
+import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
+import ru.maxmorev.eshop.customer.api.repository.CustomerVersion;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerView;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
+import ru.maxmorev.eshop.customer.api.service.CustomerPayloadCache;
+import ru.maxmorev.eshop.customer.api.service.CustomerService;
+
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Single customer reads of {@link CustomerController} and {@link AsyncCustomerController}.
+ * Responses carry the strong ETag {@code "<id>.<version>.<view>"} and {@code Cache-Control: no-cache, private},
+ * so pollers revalidate every time. {@code If-None-Match} is checked against the id and version alone,
+ * which come from the near cache or a two column query: a 304 neither loads nor serializes the customer.
+ * Bodies are serialized once into the {@link CustomerPayloadCache} and written out as bytes, gzip
+ * compressed for callers that accept it.
+ */
+@Component
+@Lazy(false)
+@RequiredArgsConstructor
+public class CustomerReader {
+
+    static final CacheControl CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+    private static final String GZIP = "gzip";
+
+    private final CustomerService customerService;
+    private final CustomerPayloadCache payloadCache;
+    private final ObjectMapper objectMapper;
+    private final MessageSource messageSource;
+
+    public ResponseEntity<Object> byId(Long id, CustomerView view, String ifNoneMatch, String acceptEncoding, Locale locale) {
+        return read(id, view, ifNoneMatch, acceptEncoding,
+                () -> customerService.findVersionById(id),
+                () -> view == CustomerView.FULL ? customerService.findById(id) : customerService.findViewById(id),
+                () -> new UsernameNotFoundException(messageSource.getMessage("customer.error.notFound.email", new Object[]{id}, locale)));
+    }
+
+    public ResponseEntity<Object> byEmail(String email, CustomerView view, String ifNoneMatch, String acceptEncoding, Locale locale) {
+        return read(email, view, ifNoneMatch, acceptEncoding,
+                () -> customerService.findVersionByEmail(email),
+                () -> view == CustomerView.FULL ? customerService.findByEmail(email) : customerService.findViewByEmail(email),
+                () -> new UsernameNotFoundException(messageSource.getMessage("customer.error.notFound.email", new Object[]{email}, locale)));
+    }
+
+    private ResponseEntity<Object> read(Object key,
+                                        CustomerView view,
+                                        String ifNoneMatch,
+                                        String acceptEncoding,
+                                        Supplier<Optional<CustomerVersion>> version,
+                                        Supplier<Optional<?>> customer,
+                                        Supplier<RuntimeException> notFound) {
+        Optional<CustomerPayloadCache.Payload> cached = payloadCache.get(key, view.name());
+        if (cached.isPresent()) {
+            return Objects.nonNull(ifNoneMatch) && matches(ifNoneMatch, cached.get().getEtag())
+                    ? notModified(cached.get().getEtag())
+                    : ok(cached.get(), acceptEncoding);
+        }
+        if (Objects.nonNull(ifNoneMatch)) {
+            Optional<String> current = version.get().map(v -> etag(v.getId(), v.getVersion(), view));
+            if (current.isPresent() && matches(ifNoneMatch, current.get())) {
+                return notModified(current.get());
+            }
+        }
+        long generation = payloadCache.generation(key);
+        Object body = customer.get().orElseThrow(notFound);
+        return ok(payloadCache.put(key, view.name(), etag(body, view), serialize(body), generation), acceptEncoding);
+    }
+
+    private static ResponseEntity<Object> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CACHE_CONTROL)
+                .build();
+    }
+
+    private static ResponseEntity<Object> ok(CustomerPayloadCache.Payload payload, String acceptEncoding) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .eTag(payload.getEtag())
+                .cacheControl(CACHE_CONTROL)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON);
+        if (Objects.nonNull(payload.getGzip()) && acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(payload.getGzip());
+        }
+        return builder.body(payload.getJson());
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Customer serialization failed", e);
+        }
+    }
+
+    static String etag(Object body, CustomerView view) {
+        if (body instanceof CustomerInfo) {
+            return etag(((CustomerInfo) body).getId(), ((CustomerInfo) body).getVersion(), view);
+        }
+        return etag(((CustomerDTO) body).getId(), ((CustomerDTO) body).getVersion(), view);
+    }
+
+    static String etag(Long id, Long version, CustomerView view) {
+        return "\"" + id + "." + version + "." + view.name().toLowerCase(Locale.ROOT) + "\"";
+    }
+
+    /**
+     * Weak comparison of RFC 7232 section 3.2: {@code W/} prefixes are ignored and {@code *} matches any customer.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether {@code Accept-Encoding} lists gzip (or {@code *}) without {@code q=0}; a malformed
+     * q value counts as the default 1
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (Objects.isNull(acceptEncoding)) {
+            return false;
+        }
+        for (String candidate : acceptEncoding.split(",")) {
+            String[] parts = candidate.split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase(GZIP) && !coding.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && quality(parameter.substring(2)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static double quality(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+
+}
@@ -2,18 +2,26 @@ package ru.maxmorev.eshop.customer.api.rest.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 import ru.maxmorev.eshop.customer.api.rest.response.Message;
+import ru.maxmorev.eshop.customer.api.service.IdempotencyKeyReusedException;
+import ru.maxmorev.eshop.customer.api.service.IdempotentRequestPendingException;
+import ru.maxmorev.eshop.customer.api.service.VerificationLockedException;
 
 import javax.persistence.PersistenceException;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 
@@ -52,6 +60,51 @@ public class GlobalDefaultExceptionHandler {
         return responseMessage;
     }
 
+    /**
+     * Concurrent or stale versioned updates
+     * @param req
+     * @param ex
+     * @return
+     */
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(value = OptimisticLockingFailureException.class)
+    @ResponseBody
+    public Message handleOptimisticLockingFailureException(HttpServletRequest req, OptimisticLockingFailureException ex) {
+        logger.warn("Update conflict: {}", ex.getMessage());
+        Message responseMessage = new Message(Message.ERROR, req.getRequestURL().toString(), "Customer was modified concurrently, reload and retry", Collections.EMPTY_LIST);
+        return responseMessage;
+    }
+
+    /**
+     * Idempotency-Key sent again with a different body
+     * @param req
+     * @param ex
+     * @return
+     */
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    @ExceptionHandler(value = IdempotencyKeyReusedException.class)
+    @ResponseBody
+    public Message handleIdempotencyKeyReusedException(HttpServletRequest req, IdempotencyKeyReusedException ex) {
+        logger.warn("Idempotency-Key reused: {}", ex.getKey());
+        Message responseMessage = new Message(Message.ERROR, req.getRequestURL().toString(), ex.getMessage(), Collections.EMPTY_LIST);
+        return responseMessage;
+    }
+
+    /**
+     * Idempotency-Key sent again while the first request is still running
+     * @param req
+     * @param ex
+     * @return
+     */
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(value = IdempotentRequestPendingException.class)
+    @ResponseBody
+    public Message handleIdempotentRequestPendingException(HttpServletRequest req, IdempotentRequestPendingException ex) {
+        logger.warn("Idempotency-Key still in progress: {}", ex.getKey());
+        Message responseMessage = new Message(Message.ERROR, req.getRequestURL().toString(), ex.getMessage(), Collections.EMPTY_LIST);
+        return responseMessage;
+    }
+
     /**
      * Validation errors
      * @param req request method
@@ -79,4 +132,70 @@ public class GlobalDefaultExceptionHandler {
         Message responseMessage = new Message(Message.ERROR, req.getRequestURL().toString(), ex.getLocalizedMessage(), Collections.EMPTY_LIST);
         return responseMessage;
     }
+
+    /**
+     * Saturated worker pools (e.g. password hashing)
+     * @param req
+     * @param resp
+     * @param ex
+     * @return
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(value = RejectedExecutionException.class)
+    @ResponseBody
+    public Message handleRejectedExecutionException(HttpServletRequest req, HttpServletResponse resp, RejectedExecutionException ex) {
+        logger.warn("Rejected: {}", ex.getMessage());
+        resp.setHeader("Retry-After", "1");
+        Message responseMessage = new Message(Message.ERROR, req.getRequestURL().toString(), "Service is overloaded, try again later", Collections.EMPTY_LIST);
+        return responseMessage;
+    }
+
+    /**
+     * Async requests not completed within spring.mvc.async.request-timeout
+     * @param req
+     * @param resp
+     * @param ex
+     * @return
+     */
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ExceptionHandler(value = AsyncRequestTimeoutException.class)
+    @ResponseBody
+    public Message handleAsyncRequestTimeoutException(HttpServletRequest req, HttpServletResponse resp, AsyncRequestTimeoutException ex) {
+        logger.warn("Async request timed out: {}", req.getRequestURI());
+        resp.setHeader("Retry-After", "1");
+        Message responseMessage = new Message(Message.ERROR, req.getRequestURL().toString(), "Request timed out", Collections.EMPTY_LIST);
+        return responseMessage;
+    }
+
+    /**
+     * Verification attempts of a customer used up
+     * @param req
+     * @param resp
+     * @param ex
+     * @return
+     */
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    @ExceptionHandler(value = VerificationLockedException.class)
+    @ResponseBody
+    public Message handleVerificationLockedException(HttpServletRequest req, HttpServletResponse resp, VerificationLockedException ex) {
+        logger.warn("Verification locked: customer {}", ex.getCustomerId());
+        resp.setHeader("Retry-After", String.valueOf(Math.max(1, ex.getRetryAfter().getSeconds())));
+        Message responseMessage = new Message(Message.ERROR, req.getRequestURL().toString(), ex.getMessage(), Collections.EMPTY_LIST);
+        return responseMessage;
+    }
+
+    /**
+     * Method security (@PreAuthorize) rejections
+     * @param req
+     * @param ex
+     * @return
+     */
+    @ResponseStatus(HttpStatus.FORBIDDEN)
+    @ExceptionHandler(value = AccessDeniedException.class)
+    @ResponseBody
+    public Message handleAccessDeniedException(HttpServletRequest req, AccessDeniedException ex) {
+        logger.warn("Access denied: {}", req.getRequestURI());
+        Message responseMessage = new Message(Message.ERROR, req.getRequestURL().toString(), ex.getMessage(), Collections.EMPTY_LIST);
+        return responseMessage;
+    }
 }
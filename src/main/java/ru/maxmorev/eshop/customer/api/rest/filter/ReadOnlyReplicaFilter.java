@@ -0,0 +1,89 @@
+package ru.maxmorev.eshop.customer.api.rest.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import ru.maxmorev.eshop.customer.api.config.ReplicationConfig;
+import ru.maxmorev.eshop.customer.api.rest.response.Message;
+import ru.maxmorev.eshop.customer.api.service.CustomerReplica;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Objects;
+
+/**
+ * Lets only reads through on a replica: GET, HEAD and OPTIONS requests and {@code POST /customers/lookup}.
+ * Anything else is redirected with 307, which keeps method and body, to {@code customer.replication.primary-url}
+ * or, without one, answered with 503. Reads are answered with 503 too while {@link CustomerReplica} has no
+ * consistent state to serve; actuator endpoints are always let through.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "customer.replication", name = "role", havingValue = "replica")
+public class ReadOnlyReplicaFilter extends OncePerRequestFilter {
+
+    private static final String LOOKUP = "/customers/lookup";
+    private static final String ACTUATOR = "/actuator";
+
+    private final String primaryUrl;
+    private final ObjectMapper objectMapper;
+    private final CustomerReplica customerReplica;
+
+    public ReadOnlyReplicaFilter(ReplicationConfig config, ObjectMapper objectMapper, CustomerReplica customerReplica) {
+        this.primaryUrl = StringUtils.trimTrailingCharacter(Objects.toString(config.getPrimaryUrl(), ""), '/');
+        this.objectMapper = objectMapper;
+        this.customerReplica = customerReplica;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith(ACTUATOR)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (isRead(request)) {
+            if (customerReplica.isServing()) {
+                chain.doFilter(request, response);
+            } else {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                unavailable(request, response, "Replica is loading a snapshot, try again later");
+            }
+            return;
+        }
+        if (!primaryUrl.isEmpty()) {
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION, primaryUrl + path + (Objects.isNull(request.getQueryString()) ? "" : "?" + request.getQueryString()));
+            return;
+        }
+        log.warn("Write rejected by read-only replica: {} {}", request.getMethod(), path);
+        unavailable(request, response, "Read-only replica, send writes to the primary");
+    }
+
+    private void unavailable(HttpServletRequest request, HttpServletResponse response, String message) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new Message(Message.ERROR, request.getRequestURL().toString(),
+                message, Collections.EMPTY_LIST));
+    }
+
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return HttpMethod.GET.matches(method)
+                || HttpMethod.HEAD.matches(method)
+                || HttpMethod.OPTIONS.matches(method)
+                || (HttpMethod.POST.matches(method) && LOOKUP.equals(request.getRequestURI().substring(request.getContextPath().length())));
+    }
+
+}
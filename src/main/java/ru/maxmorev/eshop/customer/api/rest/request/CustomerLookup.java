@@ -0,0 +1,23 @@
+package ru.maxmorev.eshop.customer.api.rest.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import ru.maxmorev.eshop.customer.api.util.LogRenderer;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /customers/lookup}; either list may be omitted.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CustomerLookup {
+    private List<Long> ids;
+    private List<String> emails;
+
+    @Override
+    public String toString() {
+        return LogRenderer.render(this);
+    }
+
+}
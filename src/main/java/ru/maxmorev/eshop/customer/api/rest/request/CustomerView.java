@@ -0,0 +1,19 @@
+package ru.maxmorev.eshop.customer.api.rest.request;
+
+import java.util.Arrays;
+
+/**
+ * {@code ?view=} of the single customer lookups: {@link #PUBLIC} is a column projection into
+ * {@link ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO}, {@link #FULL} the whole entity.
+ */
+public enum CustomerView {
+    PUBLIC,
+    FULL;
+
+    public static CustomerView of(String name) {
+        return Arrays.stream(values())
+                .filter(v -> v.name().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported view " + name));
+    }
+}
@@ -1,14 +1,19 @@
 package ru.maxmorev.eshop.customer.api.rest.response;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
+import ru.maxmorev.eshop.customer.api.util.LogRenderer;
 
+/**
+ * Public view of a customer. Also the target of the repository's constructor projections,
+ * so the field order matches their {@code select new} argument lists.
+ */
 @Getter
 @Builder
+@AllArgsConstructor
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class CustomerDTO {
     private Long id;
@@ -18,6 +23,7 @@ public class CustomerDTO {
     private String postcode;
     private String city;
     private String address;
+    private Long version;
 
     public static CustomerDTO of(CustomerInfo info){
         return CustomerDTO.builder()
@@ -28,17 +34,13 @@ public class CustomerDTO {
                 .city(info.getCity())
                 .address(info.getAddress())
                 .postcode(info.getPostcode())
+                .version(info.getVersion())
                 .build();
     }
 
     @Override
     public String toString() {
-        ObjectMapper mapper = new ObjectMapper();
-        try {
-            return mapper.writeValueAsString(this);
-        } catch (JsonProcessingException e) {
-            return e.getMessage();
-        }
+        return LogRenderer.render(this);
     }
 
 }
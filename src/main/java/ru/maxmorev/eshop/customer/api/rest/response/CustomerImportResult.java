@@ -0,0 +1,21 @@
+package ru.maxmorev.eshop.customer.api.rest.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One line of the {@code POST /customer/batch} report, matched to the input by line number.
+ */
+@Getter
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CustomerImportResult {
+    private final int line;
+    private final String status;
+    private final Long id;
+    private final String email;
+    private final List<Message.ErrorDetail> errors;
+}
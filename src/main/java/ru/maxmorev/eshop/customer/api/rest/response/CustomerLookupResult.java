@@ -0,0 +1,16 @@
+package ru.maxmorev.eshop.customer.api.rest.response;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Every requested id and email in request order, mapped to the customer or to {@code null} if there is none.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CustomerLookupResult {
+    private final Map<Long, CustomerDTO> ids;
+    private final Map<String, CustomerDTO> emails;
+}
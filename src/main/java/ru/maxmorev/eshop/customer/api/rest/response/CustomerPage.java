@@ -0,0 +1,17 @@
+package ru.maxmorev.eshop.customer.api.rest.response;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A page of the customer listing; pass {@code next} back as {@code after} to get the following page,
+ * it is {@code null} on the last page.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CustomerPage {
+    private final List<CustomerDTO> items;
+    private final String next;
+}
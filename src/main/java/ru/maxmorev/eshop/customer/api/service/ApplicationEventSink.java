@@ -0,0 +1,27 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.maxmorev.eshop.customer.api.entities.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Publishes relayed events to in-process {@code @EventListener}s of {@link OutboxEvent};
+ * a listener throwing fails the batch.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "customer.outbox", name = "sink", havingValue = "application", matchIfMissing = true)
+public class ApplicationEventSink implements CustomerEventSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+}
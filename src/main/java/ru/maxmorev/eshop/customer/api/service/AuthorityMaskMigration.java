@@ -0,0 +1,53 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.maxmorev.eshop.customer.api.entities.CustomerAuthorities;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * One-off conversion of the legacy comma separated {@code customer.authorities} column into
+ * {@code customer.authority_mask}. Depends on the {@link EntityManagerFactory} so that
+ * {@code hbm2ddl} has already added the new column; does nothing once the old column is gone.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class AuthorityMaskMigration implements InitializingBean {
+
+    private static final String LEGACY_COLUMN_EXISTS = "select count(*) from information_schema.columns " +
+            "where upper(table_name) = 'CUSTOMER' and upper(column_name) = 'AUTHORITIES'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AuthorityMaskMigration(JdbcTemplate jdbcTemplate,
+                                  TransactionTemplate transactionTemplate,
+                                  EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Integer legacy = jdbcTemplate.queryForObject(LEGACY_COLUMN_EXISTS, Integer.class);
+        if (legacy == null || legacy == 0) {
+            return;
+        }
+        transactionTemplate.execute(status -> {
+            List<Object[]> masks = jdbcTemplate.query("select id, authorities from customer",
+                    (rs, rowNum) -> new Object[]{CustomerAuthorities.parse(rs.getString(2)), rs.getLong(1)});
+            jdbcTemplate.batchUpdate("update customer set authority_mask = ? where id = ?", masks);
+            jdbcTemplate.execute("alter table customer drop column authorities");
+            log.info("Migrated authorities of {} customers to authority_mask", masks.size());
+            return null;
+        });
+    }
+
+}
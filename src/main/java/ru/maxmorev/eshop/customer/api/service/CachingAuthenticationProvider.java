@@ -0,0 +1,128 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.maxmorev.eshop.customer.api.config.AuthenticationCacheConfig;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers successful username/password authentications for {@code customer.auth-cache.ttl}, so
+ * repeated HTTP Basic requests skip both the user query and the BCrypt comparison.
+ * Entries are keyed by username and hold an HMAC-SHA256 of the presented password under a random
+ * key that exists only in this process; neither the password nor an unkeyed hash is kept.
+ * Failed attempts always reach {@link DaoAuthenticationProvider}. Any {@link CustomerChangedEvent}
+ * drops the customer's entry after commit; through {@link InvalidationGenerations} a login racing with
+ * a password, authority or verification change cannot put the old credentials back.
+ * Being the only {@link AuthenticationProvider} bean, it is picked up by the global authentication
+ * manager in place of the default DAO provider.
+ */
+@Slf4j
+@Component
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final DaoAuthenticationProvider delegate;
+    private final boolean enabled;
+    private final Cache<String, CachedAuthentication> cache;
+    private final SecretKeySpec key;
+    private final InvalidationGenerations generations = new InvalidationGenerations();
+
+    public CachingAuthenticationProvider(UserDetailsService userDetailsService,
+                                         PasswordEncoder passwordEncoder,
+                                         AuthenticationCacheConfig config,
+                                         MeterRegistry meterRegistry) {
+        this.delegate = new DaoAuthenticationProvider();
+        this.delegate.setUserDetailsService(userDetailsService);
+        this.delegate.setPasswordEncoder(passwordEncoder);
+        this.enabled = config.isEnabled();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "customer.auth");
+        log.info("Authentication cache enabled: {}, ttl {}", enabled, config.getTtl());
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) {
+        if (!enabled || Objects.isNull(authentication.getCredentials())) {
+            return delegate.authenticate(authentication);
+        }
+        String username = authentication.getName();
+        byte[] mac = mac(username, authentication.getCredentials().toString());
+        CachedAuthentication cached = cache.getIfPresent(username);
+        if (Objects.nonNull(cached) && MessageDigest.isEqual(cached.mac, mac)) {
+            return cached.result;
+        }
+        long generation = generations.current(username);
+        Authentication result = delegate.authenticate(authentication);
+        UsernamePasswordAuthenticationToken token = new UsernamePasswordAuthenticationToken(
+                result.getPrincipal(), null, result.getAuthorities());
+        token.setDetails(result.getDetails());
+        cache.asMap().compute(username, (k, current) -> generations.unchanged(username, generation)
+                ? new CachedAuthentication(mac, token)
+                : current);
+        return token;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (Objects.nonNull(event.getEmail())) {
+            generations.bump(event.getEmail());
+            cache.invalidate(event.getEmail());
+        }
+    }
+
+    private byte[] mac(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedAuthentication {
+        private final byte[] mac;
+        private final Authentication result;
+    }
+
+}
@@ -0,0 +1,146 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
+import ru.maxmorev.eshop.customer.api.repository.CustomerVersion;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
+
+import java.util.Optional;
+
+/**
+ * Serves {@link #findById(Long)} and {@link #findByEmail(String)} from {@link CustomerCache}
+ * before reaching the transactional {@link CustomerServiceImpl}, so a hit neither opens a
+ * transaction nor runs a query. Emails rejected by {@link EmailIndex} are misses without either.
+ * Mutations go straight to the delegate, which publishes {@link CustomerChangedEvent} to
+ * invalidate the cache after commit.
+ */
+@Service("cachingCustomerService")
+public class CachingCustomerService implements CustomerService {
+
+    private final CustomerService customerService;
+    private final CustomerCache customerCache;
+    private final EmailIndex emailIndex;
+
+    public CachingCustomerService(@Qualifier("customerService") CustomerService customerService,
+                                  CustomerCache customerCache,
+                                  EmailIndex emailIndex) {
+        this.customerService = customerService;
+        this.customerCache = customerCache;
+        this.emailIndex = emailIndex;
+    }
+
+    @Override
+    public Customer createCustomerAndVerifyByEmail(Customer customer) {
+        return customerService.createCustomerAndVerifyByEmail(customer);
+    }
+
+    @Override
+    public Customer createAdminAndVerifyByEmail(Customer customer) {
+        return customerService.createAdminAndVerifyByEmail(customer);
+    }
+
+    @Override
+    public void update(Customer customer) {
+        customerService.update(customer);
+    }
+
+    @Override
+    public Customer updateInfo(CustomerInfo i) {
+        return customerService.updateInfo(i);
+    }
+
+    @Override
+    public Optional<Customer> findById(Long id) {
+        Optional<Customer> cached = customerCache.getById(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long generation = customerCache.generation(id);
+        Optional<Customer> customer = customerService.findById(id);
+        customer.ifPresent(c -> customerCache.put(c, id, generation));
+        return customer;
+    }
+
+    @Override
+    public Optional<Customer> findByEmail(String email) {
+        if (!emailIndex.mightContain(email)) {
+            return Optional.empty();
+        }
+        Optional<Customer> cached = customerCache.getByEmail(email);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        long generation = customerCache.generation(email);
+        Optional<Customer> customer = customerService.findByEmail(email);
+        customer.ifPresent(c -> customerCache.put(c, email, generation));
+        return customer;
+    }
+
+    /**
+     * A cached customer is converted in memory; a miss goes to the projection and is not cached.
+     */
+    @Override
+    public Optional<CustomerDTO> findViewById(Long id) {
+        Optional<Customer> cached = customerCache.getById(id);
+        if (cached.isPresent()) {
+            return cached.map(CustomerDTO::of);
+        }
+        return customerService.findViewById(id);
+    }
+
+    @Override
+    public Optional<CustomerDTO> findViewByEmail(String email) {
+        if (!emailIndex.mightContain(email)) {
+            return Optional.empty();
+        }
+        Optional<Customer> cached = customerCache.getByEmail(email);
+        if (cached.isPresent()) {
+            return cached.map(CustomerDTO::of);
+        }
+        return customerService.findViewByEmail(email);
+    }
+
+    @Override
+    public Optional<CustomerVersion> findVersionById(Long id) {
+        Optional<Customer> cached = customerCache.getById(id);
+        if (cached.isPresent()) {
+            return cached.map(c -> new CustomerVersion(c.getId(), c.getVersion()));
+        }
+        return customerService.findVersionById(id);
+    }
+
+    @Override
+    public Optional<CustomerVersion> findVersionByEmail(String email) {
+        if (!emailIndex.mightContain(email)) {
+            return Optional.empty();
+        }
+        Optional<Customer> cached = customerCache.getByEmail(email);
+        if (cached.isPresent()) {
+            return cached.map(c -> new CustomerVersion(c.getId(), c.getVersion()));
+        }
+        return customerService.findVersionByEmail(email);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        if (!emailIndex.mightContain(email)) {
+            return false;
+        }
+        return customerCache.getByEmail(email).isPresent() || customerService.existsByEmail(email);
+    }
+
+    /**
+     * A customer cached as verified cannot change back, so the request is answered from the cache.
+     */
+    @Override
+    public Optional<Customer> verify(Long customerId, String code) {
+        Optional<Customer> cached = customerCache.getById(customerId);
+        if (cached.isPresent() && Boolean.TRUE.equals(cached.get().getVerified())) {
+            return cached;
+        }
+        return customerService.verify(customerId, code);
+    }
+
+}
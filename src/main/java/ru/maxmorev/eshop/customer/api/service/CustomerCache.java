@@ -0,0 +1,117 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.maxmorev.eshop.customer.api.config.CustomerCacheConfig;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Near cache of customers keyed by id, with a secondary email to id index.
+ * Size is bounded with frequency-aware (W-TinyLFU) eviction and every entry expires after
+ * {@code customer.cache.expire-after-write}. A value loaded before a committed update is not cached
+ * once that update's eviction ran, see {@link InvalidationGenerations}. Entries are copied in and out,
+ * so callers may modify what they get without touching the cached state.
+ */
+@Slf4j
+@Component
+public class CustomerCache {
+
+    private final boolean enabled;
+    private final Cache<Long, Customer> byId;
+    private final Cache<String, Long> idByEmail;
+    private final InvalidationGenerations generations = new InvalidationGenerations();
+
+    public CustomerCache(CustomerCacheConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        this.idByEmail = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "customer.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, idByEmail, "customer.byEmail");
+        log.info("Customer near cache enabled: {}", enabled);
+    }
+
+    public Optional<Customer> getById(Long id) {
+        if (!enabled || Objects.isNull(id)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byId.getIfPresent(id)).map(Customer::copy);
+    }
+
+    public Optional<Customer> getByEmail(String email) {
+        if (!enabled || Objects.isNull(email)) {
+            return Optional.empty();
+        }
+        Long id = idByEmail.getIfPresent(email);
+        return Objects.isNull(id) ? Optional.empty() : getById(id);
+    }
+
+    /**
+     * To be read before loading the customer passed to {@link #put(Customer, Object, long)}.
+     *
+     * @param key id or email the customer is loaded by
+     */
+    public long generation(Object key) {
+        return generations.current(key);
+    }
+
+    /**
+     * Caches {@code customer} unless it was evicted since {@code generation} was read.
+     */
+    public void put(Customer customer, Object key, long generation) {
+        if (!enabled || Objects.isNull(customer.getId())) {
+            return;
+        }
+        boolean[] cached = {false};
+        byId.asMap().compute(customer.getId(), (id, current) -> {
+            if (!generations.unchanged(key, generation)) {
+                return current;
+            }
+            cached[0] = true;
+            return customer.copy();
+        });
+        if (cached[0] && Objects.nonNull(customer.getEmail())) {
+            idByEmail.put(customer.getEmail(), customer.getId());
+        }
+    }
+
+    public void evict(Long id, String email) {
+        if (Objects.nonNull(id)) {
+            generations.bump(id);
+        }
+        if (Objects.nonNull(email)) {
+            generations.bump(email);
+            idByEmail.invalidate(email);
+        }
+        if (Objects.nonNull(id)) {
+            byId.invalidate(id);
+        }
+    }
+
+    public void invalidateAll() {
+        byId.invalidateAll();
+        idByEmail.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        evict(event.getId(), event.getEmail());
+    }
+
+}
@@ -0,0 +1,14 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by {@link CustomerServiceImpl} whenever a customer row is inserted or modified.
+ */
+@Getter
+@RequiredArgsConstructor
+public class CustomerChangedEvent {
+    private final Long id;
+    private final String email;
+}
@@ -0,0 +1,19 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import ru.maxmorev.eshop.customer.api.entities.OutboxEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of relayed outbox events, selected with {@code customer.outbox.sink}.
+ */
+public interface CustomerEventSink {
+
+    /**
+     * Delivers {@code events} in the given order. Throwing leaves every one of them in the outbox,
+     * so they are delivered again, possibly a second time to a consumer that already got some.
+     */
+    void deliver(List<OutboxEvent> events) throws IOException;
+
+}
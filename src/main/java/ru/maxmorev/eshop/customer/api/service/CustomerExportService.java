@@ -0,0 +1,195 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.repository.CustomerRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Dumps the customer table from a forward-only cursor (fetch size is {@code hibernate.jdbc.fetch_size}),
+ * detaching every row once written, so heap use does not grow with the table.
+ * {@code password} and {@code verifyCode} are never written.
+ */
+@Slf4j
+@Service
+public class CustomerExportService {
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Format {
+        NDJSON(CustomerImportService.NDJSON),
+        CSV("text/csv");
+
+        private final String contentType;
+
+        public static Format of(String name) {
+            return Arrays.stream(values())
+                    .filter(f -> f.name().equalsIgnoreCase(name))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unsupported export format " + name));
+        }
+    }
+
+    private static final String[] COLUMNS = {
+            "id", "email", "fullName", "country", "postcode", "city", "address",
+            "verified", "dateOfCreation", "shoppingCartId", "authorities"};
+
+    private final CustomerRepository customerRepository;
+    private final ObjectMapper objectMapper;
+    private final Counter rows;
+    private final Counter bytes;
+    private final Timer duration;
+    @PersistenceContext
+    private EntityManager em;
+
+    public CustomerExportService(CustomerRepository customerRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.customerRepository = customerRepository;
+        this.objectMapper = objectMapper;
+        this.rows = Counter.builder("customer.export.rows")
+                .description("Customers written by the export endpoint")
+                .register(meterRegistry);
+        this.bytes = Counter.builder("customer.export.bytes")
+                .description("Bytes written by the export endpoint")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.duration = Timer.builder("customer.export")
+                .description("Duration of a full customer export")
+                .register(meterRegistry);
+    }
+
+    @Transactional(readOnly = true)
+    public void export(Format format, OutputStream out) throws IOException {
+        Timer.Sample sample = Timer.start();
+        CountingOutputStream counting = new CountingOutputStream(out);
+        long count;
+        try (Stream<Customer> customers = customerRepository.streamAll()) {
+            count = format == Format.CSV
+                    ? writeCsv(customers.iterator(), counting)
+                    : writeNdjson(customers.iterator(), counting);
+        } finally {
+            bytes.increment(counting.count);
+            sample.stop(duration);
+        }
+        log.info("Exported {} customers as {}, {} bytes", count, format, counting.count);
+    }
+
+    private long writeNdjson(Iterator<Customer> customers, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(null);
+        long count = 0;
+        while (customers.hasNext()) {
+            Customer c = customers.next();
+            generator.writeStartObject();
+            generator.writeObjectField("id", c.getId());
+            generator.writeStringField("email", c.getEmail());
+            generator.writeStringField("fullName", c.getFullName());
+            generator.writeStringField("country", c.getCountry());
+            generator.writeStringField("postcode", c.getPostcode());
+            generator.writeStringField("city", c.getCity());
+            generator.writeStringField("address", c.getAddress());
+            generator.writeObjectField("verified", c.getVerified());
+            generator.writeStringField("dateOfCreation", Objects.isNull(c.getDateOfCreation()) ? null : c.getDateOfCreation().toInstant().toString());
+            generator.writeObjectField("shoppingCartId", c.getShoppingCartId());
+            generator.writeArrayFieldStart("authorities");
+            for (String authority : authorities(c)) {
+                generator.writeString(authority);
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            written(c);
+            count++;
+        }
+        generator.flush();
+        return count;
+    }
+
+    private long writeCsv(Iterator<Customer> customers, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(String.join(",", COLUMNS));
+        writer.write("\r\n");
+        long count = 0;
+        while (customers.hasNext()) {
+            Customer c = customers.next();
+            writer.write(Stream.of(
+                    c.getId(), c.getEmail(), c.getFullName(), c.getCountry(), c.getPostcode(), c.getCity(), c.getAddress(),
+                    c.getVerified(),
+                    Objects.isNull(c.getDateOfCreation()) ? null : c.getDateOfCreation().toInstant(),
+                    c.getShoppingCartId(),
+                    String.join(" ", authorities(c)))
+                    .map(CustomerExportService::csvValue)
+                    .collect(Collectors.joining(",")));
+            writer.write("\r\n");
+            written(c);
+            count++;
+        }
+        writer.flush();
+        return count;
+    }
+
+    private void written(Customer customer) {
+        em.detach(customer);
+        rows.increment();
+    }
+
+    private static Collection<String> authorities(Customer customer) {
+        return customer.getAuthorities().stream().map(GrantedAuthority::getAuthority).sorted().collect(Collectors.toList());
+    }
+
+    private static String csvValue(Object value) {
+        if (Objects.isNull(value)) {
+            return "";
+        }
+        String s = value.toString();
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+}
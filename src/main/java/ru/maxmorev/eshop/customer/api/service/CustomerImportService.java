@@ -0,0 +1,301 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
+import ru.maxmorev.eshop.customer.api.config.CustomerImportConfig;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.entities.CustomerEventType;
+import ru.maxmorev.eshop.customer.api.repository.CustomerRepository;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerImportResult;
+import ru.maxmorev.eshop.customer.api.rest.response.Message;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of newline-delimited JSON customers.
+ * Input is read and the report written one chunk at a time, so memory does not depend on the
+ * size of the upload. Each chunk is validated, hashed on a pool of {@code customer.import.hashing-parallelism}
+ * threads of its own, separate from the {@link PasswordHasher} pool so imports neither queue behind signups
+ * nor make them rejected, and inserted in a single transaction, flushing every {@code hibernate.jdbc.batch_size}
+ * entities so inserts go out as JDBC batches with ids taken from the pooled-lo sequence.
+ */
+@Slf4j
+@Service
+public class CustomerImportService {
+
+    public static final String NDJSON = "application/x-ndjson";
+    private static final byte NEW_LINE = '\n';
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PasswordEncoder passwordEncoder;
+    private final ExecutorService hashingExecutor;
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MessageSource messageSource;
+    private final CustomerOutbox customerOutbox;
+    private final CustomerImportConfig config;
+    private final int jdbcBatchSize;
+    @PersistenceContext
+    private EntityManager em;
+
+    public CustomerImportService(ObjectMapper objectMapper,
+                                 Validator validator,
+                                 PasswordEncoder passwordEncoder,
+                                 CustomerRepository customerRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 ApplicationEventPublisher eventPublisher,
+                                 MessageSource messageSource,
+                                 CustomerOutbox customerOutbox,
+                                 CustomerImportConfig config,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:10}") int jdbcBatchSize) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.passwordEncoder = passwordEncoder;
+        this.hashingExecutor = ExecutorServiceMetrics.monitor(meterRegistry,
+                Executors.newFixedThreadPool(Math.max(1, config.getHashingParallelism()), new CustomizableThreadFactory("customer-import-hashing-")),
+                "customer.import.hashing", Tags.empty());
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.messageSource = messageSource;
+        this.customerOutbox = customerOutbox;
+        this.config = config;
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    public void importCustomers(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<ImportLine> chunk = new ArrayList<>(config.getChunkSize());
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (StringUtils.isBlank(line)) {
+                continue;
+            }
+            chunk.add(parse(lineNumber, line));
+            if (chunk.size() == config.getChunkSize()) {
+                importChunk(chunk);
+                writeResults(chunk, out);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk);
+            writeResults(chunk, out);
+        }
+    }
+
+    private ImportLine parse(int lineNumber, String line) {
+        ImportLine importLine = new ImportLine(lineNumber);
+        try {
+            importLine.customer = objectMapper.readValue(line, Customer.class);
+        } catch (JsonProcessingException e) {
+            importLine.fail(Collections.singletonList(new Message.ErrorDetail(null, e.getOriginalMessage())));
+        }
+        return importLine;
+    }
+
+    private void importChunk(List<ImportLine> chunk) {
+        Set<String> emails = new HashSet<>();
+        for (ImportLine line : chunk) {
+            if (line.isFailed()) {
+                continue;
+            }
+            Set<ConstraintViolation<Customer>> violations = validator.validate(line.customer);
+            if (!violations.isEmpty()) {
+                line.fail(violations.stream()
+                        .map(v -> new Message.ErrorDetail(v.getPropertyPath().toString(), v.getMessage()))
+                        .collect(Collectors.toList()));
+            } else if (!emails.add(line.customer.getEmail())) {
+                line.fail(uniqueEmailError(line.customer.getEmail()));
+            }
+        }
+        if (emails.isEmpty()) {
+            return;
+        }
+        Set<String> existing = new HashSet<>(customerRepository.findExistingEmails(emails));
+        List<ImportLine> accepted = new ArrayList<>(emails.size());
+        for (ImportLine line : chunk) {
+            if (line.isFailed()) {
+                continue;
+            }
+            if (existing.contains(line.customer.getEmail())) {
+                line.fail(uniqueEmailError(line.customer.getEmail()));
+            } else {
+                accepted.add(line);
+            }
+        }
+        hashPasswords(accepted);
+        persist(accepted);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingExecutor.shutdown();
+    }
+
+    /**
+     * Queues the whole chunk on the import hashing pool; concurrent imports share its threads.
+     */
+    private void hashPasswords(List<ImportLine> lines) {
+        for (ImportLine line : lines) {
+            String rawPassword = line.customer.getPassword();
+            line.passwordHash = CompletableFuture.supplyAsync(() -> passwordEncoder.encode(rawPassword), hashingExecutor);
+        }
+        for (ImportLine line : lines) {
+            try {
+                Customer customer = line.customer;
+                customer.setPassword(line.passwordHash.join());
+                customer.setVerifyCode(RandomStringUtils.randomAlphabetic(5));
+                // like persistOne: a supplied id would make persist fail the whole chunk
+                customer.setId(null);
+                customer.setVersion(null);
+                customer.removeAllAuthorities();
+                customer.addAuthority(AuthorityValues.CUSTOMER);
+            } catch (CompletionException e) {
+                log.error("Password hashing failed for line {}", line.lineNumber, e.getCause());
+                line.fail(storageError());
+            }
+        }
+    }
+
+    private void persist(List<ImportLine> lines) {
+        List<ImportLine> hashed = lines.stream().filter(l -> !l.isFailed()).collect(Collectors.toList());
+        if (hashed.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                int count = 0;
+                for (ImportLine line : hashed) {
+                    em.persist(line.customer);
+                    publishChanged(line.customer);
+                    if (++count % jdbcBatchSize == 0) {
+                        em.flush();
+                        em.clear();
+                    }
+                }
+                em.flush();
+                em.clear();
+                return null;
+            });
+            hashed.forEach(ImportLine::succeed);
+        } catch (DataAccessException | PersistenceException e) {
+            log.warn("Batch insert of {} customers failed, retrying one by one: {}", hashed.size(), e.getMessage());
+            hashed.forEach(this::persistOne);
+        }
+    }
+
+    private void persistOne(ImportLine line) {
+        line.customer.setId(null);
+        try {
+            line.customer = transactionTemplate.execute(status -> {
+                Customer saved = customerRepository.save(line.customer);
+                publishChanged(saved);
+                return saved;
+            });
+            line.succeed();
+        } catch (DataAccessException | PersistenceException e) {
+            log.warn("Import of line {} failed: {}", line.lineNumber, e.getMessage());
+            line.fail(storageError());
+        }
+    }
+
+    private void publishChanged(Customer customer) {
+        customerOutbox.append(CustomerEventType.CUSTOMER_CREATED, customer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(customer.getId(), customer.getEmail()));
+    }
+
+    private List<Message.ErrorDetail> uniqueEmailError(String email) {
+        return Collections.singletonList(new Message.ErrorDetail("email",
+                messageSource.getMessage("customer.error.unique.email", new Object[]{email}, LocaleContextHolder.getLocale())));
+    }
+
+    private List<Message.ErrorDetail> storageError() {
+        return Collections.singletonList(new Message.ErrorDetail(null, "Internal storage error"));
+    }
+
+    private void writeResults(List<ImportLine> chunk, OutputStream out) throws IOException {
+        for (ImportLine line : chunk) {
+            out.write(objectMapper.writeValueAsBytes(line.result));
+            out.write(NEW_LINE);
+        }
+        out.flush();
+    }
+
+    private static class ImportLine {
+        private final int lineNumber;
+        private Customer customer;
+        private CompletableFuture<String> passwordHash;
+        private CustomerImportResult result;
+
+        ImportLine(int lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+
+        boolean isFailed() {
+            return Objects.nonNull(result);
+        }
+
+        void fail(List<Message.ErrorDetail> errors) {
+            result = CustomerImportResult.builder()
+                    .line(lineNumber)
+                    .status(Message.ERROR)
+                    .email(Objects.isNull(customer) ? null : customer.getEmail())
+                    .errors(errors)
+                    .build();
+        }
+
+        void succeed() {
+            result = CustomerImportResult.builder()
+                    .line(lineNumber)
+                    .status(Message.SUCCES)
+                    .id(customer.getId())
+                    .email(customer.getEmail())
+                    .build();
+        }
+    }
+
+}
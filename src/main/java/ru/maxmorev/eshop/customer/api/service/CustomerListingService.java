@@ -0,0 +1,70 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.repository.CustomerFilter;
+import ru.maxmorev.eshop.customer.api.repository.CustomerKeyset;
+import ru.maxmorev.eshop.customer.api.repository.CustomerRepository;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerPage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Keyset (seek) paginated listing for the admin UI: every page is a bounded index range scan
+ * starting after the last row of the previous page, so deep pages cost the same as the first one.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CustomerListingService {
+
+    public static final int MAX_LIMIT = 100;
+
+    private final CustomerRepository customerRepository;
+
+    public CustomerPage list(CustomerFilter filter, CustomerKeyset.Order order, String after, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        CustomerKeyset keyset = Objects.isNull(after) ? null : decode(after);
+        if (Objects.nonNull(keyset) && keyset.getOrder() != order) {
+            throw new IllegalArgumentException("Continuation token was issued for another sort order");
+        }
+        List<Customer> rows = customerRepository.findPage(filter, order, keyset, limit + 1);
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            Customer last = rows.get(limit - 1);
+            next = encode(new CustomerKeyset(order, last.getId(), last.getDateOfCreation()));
+        }
+        return new CustomerPage(rows.stream().map(CustomerDTO::of).collect(Collectors.toList()), next);
+    }
+
+    static String encode(CustomerKeyset keyset) {
+        String raw = keyset.getOrder() == CustomerKeyset.Order.CREATED
+                ? keyset.getOrder().name() + ":" + keyset.getId() + ":" + keyset.getDateOfCreation().getTime()
+                : keyset.getOrder().name() + ":" + keyset.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CustomerKeyset decode(String token) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split(":");
+            CustomerKeyset.Order order = CustomerKeyset.Order.valueOf(parts[0]);
+            Long id = Long.valueOf(parts[1]);
+            Date dateOfCreation = order == CustomerKeyset.Order.CREATED ? new Date(Long.parseLong(parts[2])) : null;
+            return new CustomerKeyset(order, id, dateOfCreation);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed continuation token");
+        }
+    }
+
+}
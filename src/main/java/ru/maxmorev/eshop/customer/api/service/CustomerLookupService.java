@@ -0,0 +1,91 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.repository.CustomerRepository;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerLookup;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerLookupResult;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Resolves many customers at once for other services. Keys are answered from {@link CustomerCache}
+ * and {@link EmailIndex} where possible, the rest with projected {@code IN} queries of at most
+ * {@link #CHUNK_SIZE} keys each, so a page of customers costs one request and a few queries.
+ */
+@Service
+@RequiredArgsConstructor
+public class CustomerLookupService {
+
+    public static final int MAX_KEYS = 500;
+    static final int CHUNK_SIZE = 100;
+
+    private final CustomerRepository customerRepository;
+    private final CustomerCache customerCache;
+    private final EmailIndex emailIndex;
+
+    public CustomerLookupResult lookup(CustomerLookup lookup) {
+        List<Long> ids = Optional.ofNullable(lookup.getIds()).orElse(Collections.emptyList());
+        List<String> emails = Optional.ofNullable(lookup.getEmails()).orElse(Collections.emptyList());
+        if (ids.size() + emails.size() > MAX_KEYS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYS + " ids and emails can be looked up at once");
+        }
+        return new CustomerLookupResult(byIds(ids), byEmails(emails));
+    }
+
+    private Map<Long, CustomerDTO> byIds(List<Long> ids) {
+        Map<Long, CustomerDTO> result = new LinkedHashMap<>();
+        List<Long> misses = new ArrayList<>();
+        for (Long id : ids) {
+            if (Objects.isNull(id) || result.containsKey(id)) {
+                continue;
+            }
+            Optional<Customer> cached = customerCache.getById(id);
+            result.put(id, cached.map(CustomerDTO::of).orElse(null));
+            if (!cached.isPresent()) {
+                misses.add(id);
+            }
+        }
+        load(misses, customerRepository::findViewsByIds, CustomerDTO::getId, result);
+        return result;
+    }
+
+    private Map<String, CustomerDTO> byEmails(List<String> emails) {
+        Map<String, CustomerDTO> result = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String email : emails) {
+            if (Objects.isNull(email) || result.containsKey(email)) {
+                continue;
+            }
+            Optional<Customer> cached = emailIndex.mightContain(email) ? customerCache.getByEmail(email) : Optional.empty();
+            result.put(email, cached.map(CustomerDTO::of).orElse(null));
+            if (!cached.isPresent() && emailIndex.mightContain(email)) {
+                misses.add(email);
+            }
+        }
+        load(misses, customerRepository::findViewsByEmails, CustomerDTO::getEmail, result);
+        return result;
+    }
+
+    private static <K> void load(List<K> keys,
+                                 Function<Collection<K>, List<CustomerDTO>> query,
+                                 Function<CustomerDTO, K> key,
+                                 Map<K, CustomerDTO> result) {
+        for (int from = 0; from < keys.size(); from += CHUNK_SIZE) {
+            for (CustomerDTO customer : query.apply(keys.subList(from, Math.min(from + CHUNK_SIZE, keys.size())))) {
+                result.put(key.apply(customer), customer);
+            }
+        }
+    }
+
+}
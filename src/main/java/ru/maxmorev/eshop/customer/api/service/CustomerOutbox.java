@@ -0,0 +1,44 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.maxmorev.eshop.customer.api.config.OutboxConfig;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.entities.CustomerEventType;
+import ru.maxmorev.eshop.customer.api.entities.OutboxEvent;
+import ru.maxmorev.eshop.customer.api.repository.OutboxRepository;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
+
+/**
+ * Appends customer changes to the outbox. Must run inside the transaction of the change,
+ * so an event exists exactly when the change committed; {@link OutboxRelay} delivers it.
+ */
+@Component
+public class CustomerOutbox {
+
+    private final boolean enabled;
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    public CustomerOutbox(OutboxConfig config, OutboxRepository outboxRepository, ObjectMapper objectMapper) {
+        this.enabled = config.isEnabled();
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(CustomerEventType type, Customer customer) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            outboxRepository.save(new OutboxEvent(customer.getId(), type, objectMapper.writeValueAsString(CustomerDTO.of(customer))));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Customer serialization failed", e);
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.maxmorev.eshop.customer.api.config.PayloadCacheConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized JSON of single customer reads, plain and gzip compressed, keyed by customer id or email
+ * and then by representation, so hot reads are answered with a copy of bytes instead of Jackson.
+ * Size is bounded by the cached bytes, and entries are dropped on every {@link CustomerChangedEvent}
+ * and after {@code customer.payload-cache.expire-after-write}. A payload built from a read that
+ * preceded a committed update is not cached once that update's eviction ran, see {@link InvalidationGenerations}.
+ */
+@Slf4j
+@Component
+public class CustomerPayloadCache {
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Payload {
+        private final String etag;
+        private final byte[] json;
+        /**
+         * {@code null} when the payload is too small to be worth compressing.
+         */
+        private final byte[] gzip;
+
+        int weight() {
+            return json.length + (Objects.isNull(gzip) ? 0 : gzip.length);
+        }
+    }
+
+    private final boolean enabled;
+    private final long gzipMinSize;
+    private final Cache<Object, Map<String, Payload>> payloads;
+    private final InvalidationGenerations generations = new InvalidationGenerations();
+
+    public CustomerPayloadCache(PayloadCacheConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.gzipMinSize = config.getGzipMinSize().toBytes();
+        this.payloads = Caffeine.newBuilder()
+                .maximumWeight(config.getMaximumSize().toBytes())
+                .weigher((Object key, Map<String, Payload> value) -> value.values().stream().mapToInt(Payload::weight).sum())
+                .expireAfterWrite(config.getExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, payloads, "customer.payload");
+        log.info("Customer payload cache enabled: {}", enabled);
+    }
+
+    /**
+     * @param customer id or email the customer was read by
+     */
+    public Optional<Payload> get(Object customer, String representation) {
+        if (!enabled || Objects.isNull(customer)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(payloads.getIfPresent(customer)).map(p -> p.get(representation));
+    }
+
+    /**
+     * To be read before reading the customer whose payload is passed to {@link #put}.
+     */
+    public long generation(Object customer) {
+        return generations.current(customer);
+    }
+
+    /**
+     * Compresses and caches {@code json} unless the customer was evicted since {@code generation} was read;
+     * with the cache disabled it is only wrapped.
+     */
+    public Payload put(Object customer, String representation, String etag, byte[] json, long generation) {
+        if (!enabled) {
+            return new Payload(etag, json, null);
+        }
+        Payload payload = new Payload(etag, json, json.length < gzipMinSize ? null : gzip(json));
+        payloads.asMap().compute(customer, (key, cached) -> {
+            if (!generations.unchanged(key, generation)) {
+                return cached;
+            }
+            if (Objects.isNull(cached)) {
+                return Collections.singletonMap(representation, payload);
+            }
+            Map<String, Payload> merged = new HashMap<>(cached);
+            merged.put(representation, payload);
+            return merged;
+        });
+        return payload;
+    }
+
+    public void evict(Long id, String email) {
+        if (Objects.nonNull(id)) {
+            generations.bump(id);
+            payloads.invalidate(id);
+        }
+        if (Objects.nonNull(email)) {
+            generations.bump(email);
+            payloads.invalidate(email);
+        }
+    }
+
+    public void invalidateAll() {
+        payloads.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        evict(event.getId(), event.getEmail());
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] compressed = out.toByteArray();
+        return compressed.length < json.length ? compressed : null;
+    }
+
+}
@@ -0,0 +1,219 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.maxmorev.eshop.customer.api.config.ReplicationConfig;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Replica side of replication, active with {@code customer.replication.role=replica}. Loads the newest
+ * snapshot of {@link ReplicationPublisher} into the local database, then applies change segments in
+ * sequence order every {@code interval}; when a needed segment was already cleaned up or the primary
+ * restarted it loads the newest snapshot again. Rows are upserted and announced with {@link CustomerChangedEvent}, so the caches in front
+ * of the repository invalidate as on the primary. A snapshot is applied in several transactions, so while
+ * one loads the replica reports DOWN and does not serve, see {@link #isServing()}. Exports
+ * {@code customer.replication.lag}: the age of the newest primary position fully applied.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "customer.replication", name = "role", havingValue = "replica")
+public class CustomerReplica implements HealthIndicator {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final TypeReference<LinkedHashMap<String, Object>> ROW = new TypeReference<LinkedHashMap<String, Object>>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final ReplicationConfig config;
+    private final Map<String, String> upserts = new HashMap<>();
+    private ScheduledExecutorService scheduler;
+    private volatile boolean loaded;
+    private volatile boolean loadingSnapshot;
+    /**
+     * Last segment applied; the one before the snapshot right after loading it.
+     */
+    private volatile long applied;
+    private long epoch;
+    private volatile long caughtUpAt;
+
+    public CustomerReplica(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           ObjectMapper objectMapper,
+                           ReplicationConfig config,
+                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.config = config;
+        Gauge.builder("customer.replication.lag", this, r -> r.caughtUpAt == 0 ? Double.NaN : (System.currentTimeMillis() - r.caughtUpAt) / 1000.0)
+                .description("Age of the newest primary state this replica has applied")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("customer.replication.sequence", this, r -> r.applied)
+                .description("Last change segment applied")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long interval = config.getInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("customer-replica-"));
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, 0, interval, TimeUnit.MILLISECONDS);
+        log.info("Replicating from {}", config.getDirectory());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (Objects.nonNull(scheduler)) {
+            scheduler.shutdown();
+        }
+    }
+
+    @Override
+    public Health health() {
+        if (!loaded) {
+            return Health.down().withDetail("reason", "no snapshot loaded").build();
+        }
+        if (loadingSnapshot) {
+            return Health.down().withDetail("reason", "reloading snapshot").withDetail("sequence", applied).build();
+        }
+        return Health.up().withDetail("sequence", applied).build();
+    }
+
+    /**
+     * @return whether a snapshot is fully loaded and no reload is in progress, i.e. reads see one
+     * consistent state of the primary
+     */
+    public boolean isServing() {
+        return loaded && !loadingSnapshot;
+    }
+
+    /**
+     * Applies everything the primary has published since the last call.
+     */
+    public synchronized void poll() throws IOException {
+        Path directory = config.getDirectory();
+        JsonNode position = readPosition(directory);
+        NavigableMap<Long, Path> segments = ReplicationFiles.list(directory, ReplicationFiles.CHANGES).tailMap(applied, false);
+        boolean restarted = Objects.nonNull(position) && epoch != 0 && position.get("epoch").asLong() != epoch;
+        if (!loaded || restarted || (!segments.isEmpty() && segments.firstKey() != applied + 1)) {
+            NavigableMap<Long, Path> snapshots = ReplicationFiles.list(directory, ReplicationFiles.SNAPSHOT);
+            if (snapshots.isEmpty()) {
+                return;
+            }
+            long sequence = snapshots.lastKey();
+            // stays set after a failed load, which the next poll retries
+            loadingSnapshot = true;
+            long rows = apply(snapshots.lastEntry().getValue());
+            applied = sequence - 1;
+            loaded = true;
+            loadingSnapshot = false;
+            if (Objects.nonNull(position)) {
+                epoch = position.get("epoch").asLong();
+            }
+            log.info("Loaded replication snapshot {} with {} customers", sequence, rows);
+            segments = ReplicationFiles.list(directory, ReplicationFiles.CHANGES).tailMap(applied, false);
+        }
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            if (segment.getKey() != applied + 1) {
+                break;
+            }
+            apply(segment.getValue());
+            applied = segment.getKey();
+        }
+        if (Objects.nonNull(position) && applied >= position.get("nextSequence").asLong() - 1) {
+            caughtUpAt = position.get("publishedAt").asLong();
+        }
+    }
+
+    private JsonNode readPosition(Path directory) throws IOException {
+        Path position = directory.resolve(ReplicationFiles.POSITION);
+        return Files.exists(position) ? objectMapper.readTree(position.toFile()) : null;
+    }
+
+    private long apply(Path file) throws IOException {
+        long rows = 0;
+        List<Map<String, Object>> batch = new ArrayList<>(BATCH_SIZE);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                batch.add(objectMapper.readValue(line, ROW));
+                if (batch.size() == BATCH_SIZE) {
+                    rows += upsert(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return rows + upsert(batch);
+    }
+
+    private int upsert(List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.execute(status -> {
+            rows.stream()
+                    .collect(Collectors.groupingBy(row -> String.join(",", row.keySet()), LinkedHashMap::new, Collectors.toList()))
+                    .forEach((columns, group) -> jdbcTemplate.batchUpdate(upsert(columns),
+                            group.stream().map(row -> row.values().toArray()).collect(Collectors.toList())));
+            for (Map<String, Object> row : rows) {
+                eventPublisher.publishEvent(new CustomerChangedEvent(((Number) row.get("id")).longValue(), (String) row.get("email")));
+            }
+            return null;
+        });
+        return rows.size();
+    }
+
+    private String upsert(String columns) {
+        return upserts.computeIfAbsent(columns, c -> "merge into customer (" + c + ") key (id) values (" +
+                c.replaceAll("[^,]+", "?") + ")");
+    }
+
+    private void pollQuietly() {
+        try {
+            poll();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Replication poll failed, retrying next round: {}", e.getMessage());
+        }
+    }
+
+}
@@ -3,6 +3,8 @@ package ru.maxmorev.eshop.customer.api.service;
 
 import ru.maxmorev.eshop.customer.api.entities.Customer;
 import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
+import ru.maxmorev.eshop.customer.api.repository.CustomerVersion;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
 
 import java.util.Optional;
 
@@ -18,6 +20,16 @@ public interface CustomerService {
 
     Optional<Customer> findByEmail(String email);
 
+    Optional<CustomerDTO> findViewById(Long id);
+
+    Optional<CustomerDTO> findViewByEmail(String email);
+
+    Optional<CustomerVersion> findVersionById(Long id);
+
+    Optional<CustomerVersion> findVersionByEmail(String email);
+
+    boolean existsByEmail(String email);
+
     Optional<Customer> verify(Long customerId, String code);
 
 }
@@ -4,33 +4,47 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
 import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.entities.CustomerEventType;
 import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
 import ru.maxmorev.eshop.customer.api.repository.CustomerRepository;
+import ru.maxmorev.eshop.customer.api.repository.CustomerVersion;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
 
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Slf4j
 @Transactional
 @Service("customerService")
 @AllArgsConstructor
-public class CustomerServiceImpl implements CustomerService {
+public class CustomerServiceImpl implements CustomerService, UserDetailsService {
 
     private CustomerRepository customerRepository;
-    private PasswordEncoder bcryptEncoder;
+    private PasswordHasher passwordHasher;
     private MessageSource messageSource;
-    @PersistenceContext
-    private EntityManager em;
+    private ApplicationEventPublisher eventPublisher;
+    private EmailIndex emailIndex;
+    private Validator validator;
+    private TransactionTemplate transactionTemplate;
+    private VerifyAttempts verifyAttempts;
+    private CustomerOutbox customerOutbox;
 
     protected void checkEmail(Customer customer) {
         findByEmail(customer.getEmail())
@@ -41,51 +55,127 @@ public class CustomerServiceImpl implements CustomerService {
                 ));
     }
 
+    /**
+     * Must be called inside the transaction of the change, see {@link CustomerOutbox}.
+     */
+    protected void publishChanged(CustomerEventType type, Customer customer) {
+        customerOutbox.append(type, customer);
+        eventPublisher.publishEvent(new CustomerChangedEvent(customer.getId(), customer.getEmail()));
+    }
+
+    protected void validate(Customer customer) {
+        Set<ConstraintViolation<Customer>> violations = validator.validate(customer);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+    }
+
+    /**
+     * Inserts in a transaction of its own, so a connection is held only for the insert and commit.
+     */
+    protected Customer insert(Customer customer) {
+        customer.setVersion(null);
+        return transactionTemplate.execute(status -> {
+            Customer created = customerRepository.save(customer);
+            publishChanged(CustomerEventType.CUSTOMER_CREATED, created);
+            return created;
+        });
+    }
+
+    /**
+     * Validation and hashing run before any transaction is opened; see {@link #insert(Customer)}.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     @Override
     public Customer createCustomerAndVerifyByEmail(Customer customer) {
-        Customer created = null;
+        validate(customer);
         checkEmail(customer);
         customer.setVerifyCode(RandomStringUtils.randomAlphabetic(5));
-        customer.setPassword(bcryptEncoder.encode(customer.getPassword()));
+        customer.setPassword(passwordHasher.encode(customer.getPassword()));
         customer.removeAllAuthorities();
         customer.addAuthority(AuthorityValues.CUSTOMER);
-        created = customerRepository.save(customer);
-        em.flush();
-        return created;
+        return insert(customer);
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     @Override
     public Customer createAdminAndVerifyByEmail(Customer customer) {
-        Customer created = null;
+        validate(customer);
         checkEmail(customer);
         customer.setVerifyCode(RandomStringUtils.randomAlphabetic(5));
-        customer.setPassword(bcryptEncoder.encode(customer.getPassword()));
+        customer.setPassword(passwordHasher.encode(customer.getPassword()));
         customer.addAuthority(AuthorityValues.ADMIN);
-        created = customerRepository.save(customer);
-        em.flush();
-        return created;
+        return insert(customer);
     }
 
     @Transactional(readOnly = true)
     @Override
     public Optional<Customer> findByEmail(String email) {
+        if (!emailIndex.mightContain(email)) {
+            return Optional.empty();
+        }
         return customerRepository.findByEmail(email);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<CustomerDTO> findViewById(Long id) {
+        return customerRepository.findViewById(id);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<CustomerDTO> findViewByEmail(String email) {
+        if (!emailIndex.mightContain(email)) {
+            return Optional.empty();
+        }
+        return customerRepository.findViewByEmail(email);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<CustomerVersion> findVersionById(Long id) {
+        return customerRepository.findVersionById(id);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<CustomerVersion> findVersionByEmail(String email) {
+        if (!emailIndex.mightContain(email)) {
+            return Optional.empty();
+        }
+        return customerRepository.findVersionByEmail(email);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public boolean existsByEmail(String email) {
+        return emailIndex.mightContain(email) && customerRepository.existsByEmail(email);
+    }
+
     @Override
     public void update(Customer customer) {
-        this.customerRepository.save(customer);
+        publishChanged(CustomerEventType.CUSTOMER_INFO_UPDATED, this.customerRepository.save(customer));
     }
 
+    /**
+     * The code is checked by {@link CustomerRepository#markVerified(Long, String)}; the customer is
+     * only loaded afterwards to build the response. Already verified customers are returned as they
+     * are and do not count as failed attempts.
+     *
+     * @throws VerificationLockedException after too many wrong codes, see {@link VerifyAttempts}
+     */
     @Override
     public Optional<Customer> verify(Long customerId, String code) {
+        verifyAttempts.reserve(customerId);
+        boolean verified = customerRepository.markVerified(customerId, code) == 1;
         Optional<Customer> c = customerRepository.findById(customerId);
-        c.ifPresent(customer -> {
-            if (code.equals(customer.getVerifyCode())) {
-                customer.setVerified(true);
-                customerRepository.save(customer);
-            }
-        });
+        if (verified) {
+            verifyAttempts.reset(customerId);
+            c.ifPresent(customer -> publishChanged(CustomerEventType.CUSTOMER_VERIFIED, customer));
+        } else if (!c.isPresent() || Boolean.TRUE.equals(c.get().getVerified())) {
+            verifyAttempts.release(customerId);
+        }
         return c;
     }
 
@@ -96,12 +186,18 @@ public class CustomerServiceImpl implements CustomerService {
     }
 
     @Transactional(readOnly = true)
+    @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         return findByEmail(username)
                 .orElseThrow(() -> new UsernameNotFoundException(messageSource.getMessage("customer.error.notFound",
                         new Object[]{username}, LocaleContextHolder.getLocale())));
     }
 
+    /**
+     * Writes only when a field actually changes; Hibernate's dynamic update then sets just those
+     * columns and bumps the version, failing with {@link org.springframework.dao.OptimisticLockingFailureException}
+     * when a concurrent update committed first or {@code i} carries a stale version.
+     */
     @Override
     public Customer updateInfo(CustomerInfo i) {
         Customer findByEmail = findByEmail(i.getEmail())
@@ -109,12 +205,14 @@ public class CustomerServiceImpl implements CustomerService {
                         messageSource.getMessage("customer.error.notFound",
                                 new Object[]{i.getEmail()}, LocaleContextHolder.getLocale()))
                 );
-
-        findByEmail.setAddress(i.getAddress());
-        findByEmail.setCity(i.getCity());
-        findByEmail.setPostcode(i.getPostcode());
-        findByEmail.setCountry(i.getCountry());
-        findByEmail.setFullName(i.getFullName());
-        return customerRepository.save(findByEmail);
+        if (Objects.nonNull(i.getVersion()) && !i.getVersion().equals(findByEmail.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Customer.class, findByEmail.getId());
+        }
+        if (!findByEmail.updateInfo(i)) {
+            return findByEmail;
+        }
+        Customer updated = customerRepository.save(findByEmail);
+        publishChanged(CustomerEventType.CUSTOMER_INFO_UPDATED, updated);
+        return updated;
     }
 }
@@ -0,0 +1,50 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import ru.maxmorev.eshop.customer.api.config.AsyncConfig;
+import ru.maxmorev.eshop.customer.api.util.RequestContext;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking repository work of async requests on a pool sized to the connection pool,
+ * so servlet threads are released while H2 reads or commits. A full queue throws
+ * {@link java.util.concurrent.RejectedExecutionException}, mapped to 503 like {@link PasswordHasher}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "customer.async", name = "enabled", havingValue = "true")
+public class DatabaseExecutor {
+
+    private final ThreadPoolExecutor executor;
+
+    public DatabaseExecutor(AsyncConfig config, MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(
+                config.getDbPoolSize(),
+                config.getDbPoolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getDbQueueCapacity()),
+                new CustomizableThreadFactory("customer-db-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "customer.db", Tags.empty()).bindTo(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(RequestContext.capture(task), executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,94 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.maxmorev.eshop.customer.api.config.EmailIndexConfig;
+import ru.maxmorev.eshop.customer.api.repository.CustomerRepository;
+import ru.maxmorev.eshop.customer.api.util.BloomFilter;
+
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filter over all registered emails, so lookups and uniqueness checks for
+ * unknown emails are answered without a query. Built from a streaming scan once the application
+ * is ready and updated synchronously on every {@link CustomerChangedEvent}, i.e. before the
+ * inserting transaction commits. Until the first build completes every email is reported as
+ * possibly present. Emails are never removed, customers are not deleted.
+ */
+@Slf4j
+@Component
+public class EmailIndex {
+
+    private final boolean enabled;
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BloomFilter filter;
+    private volatile boolean ready;
+
+    public EmailIndex(EmailIndexConfig config,
+                      CustomerRepository customerRepository,
+                      TransactionTemplate transactionTemplate,
+                      MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.customerRepository = customerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.filter = new BloomFilter(config.getExpectedInsertions(), config.getFalsePositiveRate());
+        Gauge.builder("customer.email.index.fpp", filter, BloomFilter::expectedFalsePositiveRate)
+                .description("Estimated false positive rate of the email Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("customer.email.index.memory", filter, BloomFilter::memoryBytes)
+                .description("Size of the email Bloom filter bit array")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        log.info("Email index enabled: {}, {} bits, {} hash functions", enabled, filter.bitSize(), filter.hashFunctions());
+    }
+
+    /**
+     * @return {@code false} only if no customer with this email exists
+     */
+    public boolean mightContain(String email) {
+        return !enabled || !ready || Objects.isNull(email) || filter.mightContain(email);
+    }
+
+    public void add(String email) {
+        if (enabled && Objects.nonNull(email)) {
+            filter.put(email);
+        }
+    }
+
+    /**
+     * Adds every stored email; safe to call again, e.g. after rows were inserted bypassing the service.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        long count = transactionTemplate.execute(status -> {
+            long n = 0;
+            try (Stream<String> emails = customerRepository.streamEmails()) {
+                for (String email : (Iterable<String>) emails::iterator) {
+                    filter.put(email);
+                    n++;
+                }
+            }
+            return n;
+        });
+        ready = true;
+        log.info("Email index built from {} customers in {} ms, estimated fpp {}",
+                count, (System.nanoTime() - started) / 1_000_000, filter.expectedFalsePositiveRate());
+    }
+
+    @EventListener
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        add(event.getEmail());
+    }
+
+}
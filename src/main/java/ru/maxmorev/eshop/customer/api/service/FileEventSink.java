@@ -0,0 +1,60 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.maxmorev.eshop.customer.api.config.OutboxConfig;
+import ru.maxmorev.eshop.customer.api.entities.OutboxEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Appends relayed events as newline-delimited JSON to {@code customer.outbox.file} and forces them
+ * to disk before the batch counts as delivered. A stand-in for a broker in tests and local setups.
+ */
+@Component
+@ConditionalOnProperty(prefix = "customer.outbox", name = "sink", havingValue = "file")
+public class FileEventSink implements CustomerEventSink {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileEventSink(OutboxConfig config, ObjectMapper objectMapper) {
+        this.file = config.getFile();
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) throws IOException {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream(events.size() * 256);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(lines)) {
+            generator.setRootValueSeparator(null);
+            for (OutboxEvent event : events) {
+                generator.writeStartObject();
+                generator.writeNumberField("id", event.getId());
+                generator.writeStringField("type", event.getType().name());
+                generator.writeNumberField("customerId", event.getCustomerId());
+                generator.writeStringField("createdAt", event.getCreatedAt().toInstant().toString());
+                generator.writeFieldName("customer");
+                generator.writeRawValue(event.getPayload());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+}
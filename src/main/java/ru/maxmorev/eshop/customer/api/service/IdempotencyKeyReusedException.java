@@ -0,0 +1,18 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import lombok.Getter;
+
+/**
+ * An {@code Idempotency-Key} was sent again with a different request body.
+ */
+@Getter
+public class IdempotencyKeyReusedException extends IllegalStateException {
+
+    private final String key;
+
+    public IdempotencyKeyReusedException(String key) {
+        super("Idempotency-Key " + key + " was already used for a different request");
+        this.key = key;
+    }
+
+}
@@ -0,0 +1,18 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import lombok.Getter;
+
+/**
+ * The first request with an {@code Idempotency-Key} did not complete while a duplicate waited for it.
+ */
+@Getter
+public class IdempotentRequestPendingException extends IllegalStateException {
+
+    private final String key;
+
+    public IdempotentRequestPendingException(String key) {
+        super("Request with Idempotency-Key " + key + " is still in progress, retry later");
+        this.key = key;
+    }
+
+}
@@ -0,0 +1,202 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.maxmorev.eshop.customer.api.config.IdempotencyConfig;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Executes each {@code Idempotency-Key} of an operation and caller once, so one caller can neither replay
+ * nor block another caller's request by guessing its key. The first request runs and its result
+ * is kept for {@code customer.idempotency.ttl} (at most {@code maximum-size} keys); retries get the
+ * same result without hashing or persisting anything, and duplicates arriving while the first one
+ * is still running wait for it, at most {@code duplicate-wait}, then get {@link IdempotentRequestPendingException}.
+ * Failed executions, including those ending in an {@link Error}, are forgotten so a retry runs again.
+ * A key reused with a different body is rejected with {@link IdempotencyKeyReusedException}.
+ * <p>
+ * Anonymous callers are told apart by their address, taken from {@code X-Forwarded-For} when the request
+ * comes through a trusted proxy ({@code server.forward-headers-strategy}); callers sharing an address,
+ * e.g. behind one NAT or a gateway that does not forward it, share their keys.
+ */
+@Slf4j
+@Component
+public class IdempotentRequests {
+
+    public static final String HEADER = "Idempotency-Key";
+
+    private static class Execution {
+        private final byte[] fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Execution(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private final boolean enabled;
+    private final long duplicateWaitMillis;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Execution> executions;
+    private final Counter replays;
+
+    public IdempotentRequests(IdempotencyConfig config, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.duplicateWaitMillis = config.getDuplicateWait().toMillis();
+        // fingerprints cover write-only properties such as the password too
+        this.objectMapper = objectMapper.copy().setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+            @Override
+            public JsonProperty.Access findPropertyAccess(Annotated annotated) {
+                return null;
+            }
+        });
+        this.executions = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(config.getTtl().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.replays = Counter.builder("customer.idempotency.replays")
+                .description("Requests answered with the result of an earlier request with the same Idempotency-Key")
+                .register(meterRegistry);
+        Gauge.builder("customer.idempotency.keys", executions, Cache::estimatedSize)
+                .description("Idempotency keys currently remembered")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param principal     the authenticated user, {@code null} for anonymous requests
+     * @param remoteAddress the client address, identifying anonymous callers such as signups
+     * @return the scope of the caller's idempotency keys
+     */
+    public static String caller(Principal principal, String remoteAddress) {
+        return Objects.nonNull(principal) ? "user:" + principal.getName() : "remote:" + remoteAddress;
+    }
+
+    /**
+     * Runs {@code action} on the calling thread unless {@code key} was seen before for {@code operation}
+     * from {@code caller}.
+     *
+     * @param caller  see {@link #caller(Principal, String)}
+     * @param key     the request's {@code Idempotency-Key}, {@code null} to just run {@code action}
+     * @param request body the key is bound to
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T call(String operation, String caller, String key, Object request, Supplier<T> action) {
+        if (!enabled || Objects.isNull(key)) {
+            return action.get();
+        }
+        String cacheKey = operation + ' ' + caller + ' ' + key;
+        Execution execution = new Execution(fingerprint(request));
+        Execution existing = executions.asMap().putIfAbsent(cacheKey, execution);
+        if (Objects.nonNull(existing)) {
+            try {
+                return (T) replay(key, existing, execution.fingerprint).get(duplicateWaitMillis, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new CompletionException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new IdempotentRequestPendingException(key);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IdempotentRequestPendingException(key);
+            }
+        }
+        try {
+            T value = action.get();
+            execution.result.complete(value);
+            return value;
+        } catch (Throwable e) {
+            failed(cacheKey, execution, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Async counterpart of {@link #call}: {@code action} is only started for the first request of a key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> submit(String operation, String caller, String key, Object request, Supplier<CompletableFuture<T>> action) {
+        if (!enabled || Objects.isNull(key)) {
+            return action.get();
+        }
+        String cacheKey = operation + ' ' + caller + ' ' + key;
+        Execution execution = new Execution(fingerprint(request));
+        Execution existing = executions.asMap().putIfAbsent(cacheKey, execution);
+        if (Objects.nonNull(existing)) {
+            // a copy, so that timing out does not complete the shared result
+            return (CompletableFuture<T>) replay(key, existing, execution.fingerprint).copy()
+                    .orTimeout(duplicateWaitMillis, TimeUnit.MILLISECONDS)
+                    .handle((value, error) -> {
+                        if (Objects.isNull(error)) {
+                            return value;
+                        }
+                        Throwable cause = error instanceof CompletionException && Objects.nonNull(error.getCause()) ? error.getCause() : error;
+                        throw new CompletionException(cause instanceof TimeoutException ? new IdempotentRequestPendingException(key) : cause);
+                    });
+        }
+        CompletableFuture<T> result;
+        try {
+            result = action.get();
+        } catch (Throwable e) {
+            failed(cacheKey, execution, e);
+            throw e;
+        }
+        return result.whenComplete((value, error) -> {
+            if (Objects.isNull(error)) {
+                execution.result.complete(value);
+            } else {
+                failed(cacheKey, execution, error instanceof CompletionException && Objects.nonNull(error.getCause()) ? error.getCause() : error);
+            }
+        });
+    }
+
+    public void invalidateAll() {
+        executions.invalidateAll();
+    }
+
+    private CompletableFuture<Object> replay(String key, Execution existing, byte[] fingerprint) {
+        if (!MessageDigest.isEqual(existing.fingerprint, fingerprint)) {
+            throw new IdempotencyKeyReusedException(key);
+        }
+        replays.increment();
+        log.info("Replaying Idempotency-Key {}", key);
+        return existing.result;
+    }
+
+    private void failed(String cacheKey, Execution execution, Throwable error) {
+        executions.asMap().remove(cacheKey, execution);
+        execution.result.completeExceptionally(error);
+    }
+
+    private byte[] fingerprint(Object request) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Invalidation counters striped by key, closing the race between a load and the after-commit eviction
+ * of a change it did not see. A loader reads {@link #current(Object)} before loading and caches the result
+ * only if {@link #unchanged(Object, long)} still holds under the cache entry's lock; invalidation calls
+ * {@link #bump(Object)} before evicting under the same lock. Keys sharing a stripe only cost a skipped put.
+ */
+class InvalidationGenerations {
+
+    private static final int STRIPES = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    long current(Object key) {
+        return generations.get(stripe(key));
+    }
+
+    boolean unchanged(Object key, long generation) {
+        return generations.get(stripe(key)) == generation;
+    }
+
+    void bump(Object key) {
+        generations.incrementAndGet(stripe(key));
+    }
+
+    private static int stripe(Object key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % STRIPES;
+    }
+
+}
@@ -0,0 +1,168 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
+import ru.maxmorev.eshop.customer.api.repository.CustomerVersion;
+import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
+
+import javax.validation.ConstraintViolationException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Outermost {@link CustomerService}: times every operation into {@code customer.operation}, tagged with
+ * {@code operation} and a domain {@code outcome}. The timer's count is the per-outcome counter.
+ * Together with {@code customer.hashing.*}, {@code customer.repository} and {@code hikaricp.connections.usage}
+ * this splits request latency into hashing, database and the remainder (serialization, filters).
+ */
+@Primary
+@Service
+public class MeteredCustomerService implements CustomerService {
+
+    public static final String CREATED = "created";
+    public static final String UPDATED = "updated";
+    public static final String FOUND = "found";
+    public static final String NOT_FOUND = "not_found";
+    public static final String VERIFIED = "verified";
+    public static final String WRONG_CODE = "wrong_code";
+    public static final String LOCKED = "locked";
+    public static final String CONFLICT = "conflict";
+    public static final String DUPLICATE_EMAIL = "duplicate_email";
+    public static final String VALIDATION_ERROR = "validation_error";
+    public static final String REJECTED = "rejected";
+    public static final String ERROR = "error";
+
+    private final CustomerService customerService;
+    private final MeterRegistry meterRegistry;
+
+    public MeteredCustomerService(@Qualifier("cachingCustomerService") CustomerService customerService,
+                                  MeterRegistry meterRegistry) {
+        this.customerService = customerService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Customer createCustomerAndVerifyByEmail(Customer customer) {
+        return record("create", () -> customerService.createCustomerAndVerifyByEmail(customer), c -> CREATED);
+    }
+
+    @Override
+    public Customer createAdminAndVerifyByEmail(Customer customer) {
+        return record("createAdmin", () -> customerService.createAdminAndVerifyByEmail(customer), c -> CREATED);
+    }
+
+    @Override
+    public void update(Customer customer) {
+        record("update", () -> {
+            customerService.update(customer);
+            return customer;
+        }, c -> UPDATED);
+    }
+
+    @Override
+    public Customer updateInfo(CustomerInfo i) {
+        return record("updateInfo", () -> customerService.updateInfo(i), c -> UPDATED);
+    }
+
+    @Override
+    public Optional<Customer> findById(Long id) {
+        return record("findById", () -> customerService.findById(id), MeteredCustomerService::found);
+    }
+
+    @Override
+    public Optional<Customer> findByEmail(String email) {
+        return record("findByEmail", () -> customerService.findByEmail(email), MeteredCustomerService::found);
+    }
+
+    @Override
+    public Optional<CustomerDTO> findViewById(Long id) {
+        return record("findViewById", () -> customerService.findViewById(id), MeteredCustomerService::found);
+    }
+
+    @Override
+    public Optional<CustomerDTO> findViewByEmail(String email) {
+        return record("findViewByEmail", () -> customerService.findViewByEmail(email), MeteredCustomerService::found);
+    }
+
+    @Override
+    public Optional<CustomerVersion> findVersionById(Long id) {
+        return record("findVersionById", () -> customerService.findVersionById(id), MeteredCustomerService::found);
+    }
+
+    @Override
+    public Optional<CustomerVersion> findVersionByEmail(String email) {
+        return record("findVersionByEmail", () -> customerService.findVersionByEmail(email), MeteredCustomerService::found);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return record("existsByEmail", () -> customerService.existsByEmail(email), exists -> exists ? FOUND : NOT_FOUND);
+    }
+
+    @Override
+    public Optional<Customer> verify(Long customerId, String code) {
+        return record("verify", () -> customerService.verify(customerId, code), c -> c
+                .map(customer -> Objects.equals(code, customer.getVerifyCode()) ? VERIFIED : WRONG_CODE)
+                .orElse(NOT_FOUND));
+    }
+
+    private <T> T record(String operation, Supplier<T> call, Function<T, String> outcome) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String result = ERROR;
+        try {
+            T value = call.get();
+            result = outcome.apply(value);
+            return value;
+        } catch (RuntimeException e) {
+            result = outcome(e);
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("customer.operation")
+                    .description("CustomerService operations by outcome")
+                    .tag("operation", operation)
+                    .tag("outcome", result)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static String found(Optional<?> customer) {
+        return customer.isPresent() ? FOUND : NOT_FOUND;
+    }
+
+    static String outcome(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof OptimisticLockingFailureException) {
+                return CONFLICT;
+            }
+            if (t instanceof DataIntegrityViolationException
+                    || t instanceof org.hibernate.exception.ConstraintViolationException) {
+                return DUPLICATE_EMAIL;
+            }
+            if (t instanceof ConstraintViolationException) {
+                return VALIDATION_ERROR;
+            }
+            if (t instanceof RejectedExecutionException) {
+                return REJECTED;
+            }
+            if (t instanceof VerificationLockedException) {
+                return LOCKED;
+            }
+            if (t instanceof IllegalArgumentException || t instanceof UsernameNotFoundException) {
+                return NOT_FOUND;
+            }
+        }
+        return ERROR;
+    }
+
+}
@@ -0,0 +1,132 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.maxmorev.eshop.customer.api.config.OutboxConfig;
+import ru.maxmorev.eshop.customer.api.entities.OutboxEvent;
+import ru.maxmorev.eshop.customer.api.repository.OutboxRepository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the outbox to the {@link CustomerEventSink} every {@code customer.outbox.relay-interval},
+ * oldest event first, in batches of {@code batch-size}. Events are deleted only after the sink accepted
+ * them, so delivery is at least once. A failed batch stops the round and is retried whole next time,
+ * which keeps events of a customer in order. Run the relay on one instance only.
+ */
+@Slf4j
+@Component
+@Lazy(false)
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final CustomerEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxConfig config;
+    private final Counter delivered;
+    private final Counter failures;
+    private final Timer deliveryLag;
+    /**
+     * Creation time of the oldest event seen undelivered by the last round, 0 if the outbox was drained.
+     */
+    private final AtomicLong oldestPending = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       CustomerEventSink sink,
+                       TransactionTemplate transactionTemplate,
+                       OutboxConfig config,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = transactionTemplate;
+        this.config = config;
+        this.delivered = Counter.builder("customer.outbox.delivered")
+                .description("Outbox events accepted by the sink")
+                .register(meterRegistry);
+        this.failures = Counter.builder("customer.outbox.failures")
+                .description("Outbox batches the sink rejected")
+                .register(meterRegistry);
+        this.deliveryLag = Timer.builder("customer.outbox.delivery.lag")
+                .description("Time from a customer change to its delivery")
+                .register(meterRegistry);
+        Gauge.builder("customer.outbox.lag", oldestPending, o -> o.get() == 0 ? 0 : (System.currentTimeMillis() - o.get()) / 1000.0)
+                .description("Age of the oldest undelivered outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!config.isEnabled() || !config.isRelayEnabled()) {
+            log.info("Outbox relay disabled");
+            return;
+        }
+        long interval = config.getRelayInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("customer-outbox-"));
+        scheduler.scheduleWithFixedDelay(this::relay, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (Objects.nonNull(scheduler)) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void relay() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.warn("Outbox relay round failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delivers pending events until the outbox is empty or the sink fails.
+     *
+     * @return number of events delivered
+     */
+    public synchronized int drain() {
+        int total = 0;
+        while (true) {
+            List<OutboxEvent> batch = outboxRepository.findByOrderByIdAsc(PageRequest.of(0, config.getBatchSize()));
+            if (batch.isEmpty()) {
+                oldestPending.set(0);
+                return total;
+            }
+            oldestPending.set(batch.get(0).getCreatedAt().getTime());
+            try {
+                sink.deliver(batch);
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                log.warn("Relaying {} outbox events from id {} failed, retrying next round: {}", batch.size(), batch.get(0).getId(), e.getMessage());
+                return total;
+            }
+            List<Long> ids = batch.stream().map(OutboxEvent::getId).collect(Collectors.toList());
+            transactionTemplate.execute(status -> outboxRepository.deleteByIds(ids));
+            long now = System.currentTimeMillis();
+            batch.forEach(e -> deliveryLag.record(now - e.getCreatedAt().getTime(), TimeUnit.MILLISECONDS));
+            delivered.increment(batch.size());
+            total += batch.size();
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import ru.maxmorev.eshop.customer.api.config.PasswordHashingConfig;
+import ru.maxmorev.eshop.customer.api.util.RequestContext;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing on a dedicated fixed-size pool with a bounded queue, so a burst of
+ * signups cannot take the CPU away from request threads serving cheap reads.
+ * When the queue is full {@link java.util.concurrent.RejectedExecutionException} is thrown
+ * immediately and mapped to 503 by the exception handler.
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private static final String THREAD_NAME_PREFIX = "password-hashing-";
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Timer waitTimer;
+    private final Timer hashTimer;
+
+    public PasswordHasher(PasswordEncoder passwordEncoder, PasswordHashingConfig config, MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = new ThreadPoolExecutor(
+                config.getPoolSize(),
+                config.getPoolSize(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                new CustomizableThreadFactory(THREAD_NAME_PREFIX),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "customer.hashing", Tags.empty()).bindTo(meterRegistry);
+        this.waitTimer = Timer.builder("customer.hashing.wait")
+                .description("Time a password spends queued before hashing starts")
+                .register(meterRegistry);
+        this.hashTimer = Timer.builder("customer.hashing.time")
+                .description("Time spent computing a password hash")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encodeAsync(CharSequence rawPassword) {
+        long queuedAt = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            return hashTimer.record(() -> passwordEncoder.encode(rawPassword));
+        }, executor);
+    }
+
+    /**
+     * Hashes on the pool and waits for the result. Called from a hashing thread it runs inline,
+     * so work already admitted to the pool cannot deadlock on the pool's own queue.
+     */
+    public String encode(CharSequence rawPassword) {
+        if (Thread.currentThread().getName().startsWith(THREAD_NAME_PREFIX)) {
+            return hashTimer.record(() -> passwordEncoder.encode(rawPassword));
+        }
+        try {
+            return encodeAsync(rawPassword).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a whole request on the pool, e.g. a signup in async mode: the {@link #encode(CharSequence)}
+     * it makes then hashes inline instead of occupying a second slot.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(RequestContext.capture(task), executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+}
@@ -0,0 +1,64 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Layout of the replication directory. {@code snapshot-<n>.ndjson} holds every customer row as of the
+ * moment change segment {@code n} started to collect, {@code changes-<n>.ndjson} the rows changed since
+ * segment {@code n - 1}, one JSON object of column values per line; sequence numbers have no gaps.
+ * {@code position.json} is rewritten on every publish round with the next segment number and the time,
+ * so replicas can tell how far behind they are even when nothing changes. Files appear atomically.
+ */
+final class ReplicationFiles {
+
+    static final String SNAPSHOT = "snapshot-";
+    static final String CHANGES = "changes-";
+    static final String POSITION = "position.json";
+    private static final String SUFFIX = ".ndjson";
+
+    interface Writer {
+        void write(OutputStream out) throws IOException;
+    }
+
+    private ReplicationFiles() {
+    }
+
+    static String name(String prefix, long sequence) {
+        return String.format("%s%012d%s", prefix, sequence, SUFFIX);
+    }
+
+    /**
+     * @return files of the given kind by sequence number
+     */
+    static NavigableMap<Long, Path> list(Path directory, String prefix) throws IOException {
+        NavigableMap<Long, Path> files = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.forEach(path -> {
+                String name = path.getFileName().toString();
+                if (name.startsWith(prefix) && name.endsWith(SUFFIX)) {
+                    files.put(Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length())), path);
+                }
+            });
+        }
+        return files;
+    }
+
+    static void writeAtomically(Path target, Writer writer) throws IOException {
+        Path temporary = target.resolveSibling("." + target.getFileName() + ".tmp");
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            writer.write(out);
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
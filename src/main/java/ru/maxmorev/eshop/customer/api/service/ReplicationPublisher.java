@@ -0,0 +1,230 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.maxmorev.eshop.customer.api.config.ReplicationConfig;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary side of replication, active with {@code customer.replication.role=primary}. Ids of changed
+ * customers are collected after commit; every {@code interval} their current rows are written as the
+ * next change segment, and every {@code snapshot-interval} all rows as a snapshot, see {@link ReplicationFiles}.
+ * Both run on one thread and read committed rows at the time of writing, so a later file never holds an
+ * older state of a row than an earlier one and replicas can apply them as plain upserts.
+ * Changes collected but not yet written when the process stops are covered by the snapshot written on start,
+ * which replicas reload because the position carries a new epoch.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "customer.replication", name = "role", havingValue = "primary")
+public class ReplicationPublisher {
+
+    private static final int CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ReplicationConfig config;
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    /**
+     * Tells replicas the primary restarted and changes may have been lost, see {@link CustomerReplica}.
+     */
+    private final long epoch = System.currentTimeMillis();
+    private ScheduledExecutorService scheduler;
+    private long nextSequence;
+    private long lastSnapshot;
+
+    public ReplicationPublisher(DataSource dataSource,
+                                ObjectMapper objectMapper,
+                                ReplicationConfig config,
+                                MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+        this.config = config;
+        Gauge.builder("customer.replication.pending", changed, Set::size)
+                .description("Changed customers not yet written to a change segment")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        Files.createDirectories(config.getDirectory());
+        NavigableMap<Long, Path> segments = ReplicationFiles.list(config.getDirectory(), ReplicationFiles.CHANGES);
+        nextSequence = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        long interval = config.getInterval().toMillis();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("customer-replication-"));
+        scheduler.execute(this::snapshotQuietly);
+        scheduler.scheduleWithFixedDelay(this::publishQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Publishing replication files to {} from segment {}", config.getDirectory(), nextSequence);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (Objects.nonNull(scheduler)) {
+            scheduler.shutdown();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCustomerChanged(CustomerChangedEvent event) {
+        if (Objects.nonNull(event.getId())) {
+            changed.add(event.getId());
+        }
+    }
+
+    /**
+     * Writes a change segment if customers changed, a snapshot if one is due, and the position.
+     */
+    public synchronized void publish() throws IOException {
+        if (System.currentTimeMillis() - lastSnapshot >= config.getSnapshotInterval().toMillis()) {
+            snapshot();
+        }
+        List<Long> ids = new ArrayList<>(changed.size());
+        for (Iterator<Long> it = changed.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        if (!ids.isEmpty()) {
+            try {
+                writeSegment(ids);
+            } catch (IOException | RuntimeException e) {
+                changed.addAll(ids);
+                throw e;
+            }
+        }
+        writePosition();
+    }
+
+    /**
+     * Writes all rows with a single query, i.e. from one consistent read, and drops files older than
+     * the {@code snapshots-kept} newest snapshots.
+     */
+    public synchronized void snapshot() throws IOException {
+        long started = System.nanoTime();
+        long sequence = nextSequence;
+        long[] rows = {0};
+        ReplicationFiles.writeAtomically(config.getDirectory().resolve(ReplicationFiles.name(ReplicationFiles.SNAPSHOT, sequence)), out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                jdbcTemplate.query("select * from customer order by id", (ResultSet rs) -> {
+                    writeRow(rs, generator);
+                    rows[0]++;
+                });
+            }
+        });
+        lastSnapshot = System.currentTimeMillis();
+        writePosition();
+        cleanUp();
+        log.info("Replication snapshot {} of {} customers written in {} ms",
+                sequence, rows[0], Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    private void writeSegment(List<Long> ids) throws IOException {
+        Collections.sort(ids);
+        long sequence = nextSequence;
+        ReplicationFiles.writeAtomically(config.getDirectory().resolve(ReplicationFiles.name(ReplicationFiles.CHANGES, sequence)), out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+                    namedJdbcTemplate.query("select * from customer where id in (:ids) order by id",
+                            Collections.singletonMap("ids", ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()))),
+                            (ResultSet rs) -> writeRow(rs, generator));
+                }
+            }
+        });
+        nextSequence++;
+    }
+
+    private void writePosition() throws IOException {
+        ReplicationFiles.writeAtomically(config.getDirectory().resolve(ReplicationFiles.POSITION), out ->
+                objectMapper.writeValue(out, objectMapper.createObjectNode()
+                        .put("epoch", epoch)
+                        .put("nextSequence", nextSequence)
+                        .put("publishedAt", System.currentTimeMillis())));
+    }
+
+    private void cleanUp() throws IOException {
+        NavigableMap<Long, Path> snapshots = ReplicationFiles.list(config.getDirectory(), ReplicationFiles.SNAPSHOT);
+        while (snapshots.size() > Math.max(1, config.getSnapshotsKept())) {
+            Files.deleteIfExists(snapshots.pollFirstEntry().getValue());
+        }
+        long oldest = snapshots.firstKey();
+        for (Path segment : ReplicationFiles.list(config.getDirectory(), ReplicationFiles.CHANGES).headMap(oldest, false).values()) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    /**
+     * Column values by lower case column name; timestamps in the SQL literal format.
+     */
+    private static void writeRow(ResultSet rs, JsonGenerator generator) throws SQLException {
+        try {
+            ResultSetMetaData meta = rs.getMetaData();
+            generator.writeStartObject();
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                Object value = rs.getObject(i);
+                generator.writeFieldName(meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+                if (value instanceof Date) {
+                    generator.writeString(value.toString());
+                } else {
+                    generator.writeObject(value);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Replication snapshot failed", e);
+        }
+    }
+
+    private void publishQuietly() {
+        try {
+            publish();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Replication publish failed, retrying next round: {}", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import lombok.Getter;
+import org.springframework.security.authentication.LockedException;
+
+import java.time.Duration;
+
+/**
+ * Thrown by {@link VerifyAttempts} instead of checking a verification code; mapped to 429.
+ */
+@Getter
+public class VerificationLockedException extends LockedException {
+
+    private final Long customerId;
+    private final Duration retryAfter;
+
+    public VerificationLockedException(Long customerId, Duration retryAfter) {
+        super("Too many failed verification attempts for customer " + customerId);
+        this.customerId = customerId;
+        this.retryAfter = retryAfter;
+    }
+
+}
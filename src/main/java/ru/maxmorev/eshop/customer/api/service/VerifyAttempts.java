@@ -0,0 +1,82 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.maxmorev.eshop.customer.api.config.VerifyAttemptsConfig;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Failed verification attempts per customer id. A customer with {@code customer.verify.max-attempts}
+ * failures is locked until {@code customer.verify.lockout} has passed since the last failure, so
+ * guessing the five letter code costs no queries once the limit is reached. Every attempt is counted
+ * atomically before its code is checked, so concurrent guesses cannot get past the limit either; attempts
+ * that turn out not to be failures are released again. The counters live in a size-bounded Caffeine
+ * map of id to count and are dropped on success.
+ */
+@Component
+public class VerifyAttempts {
+
+    private final int maxAttempts;
+    private final Duration lockout;
+    private final Cache<Long, Integer> failures;
+    private final Counter locked;
+
+    public VerifyAttempts(VerifyAttemptsConfig config, MeterRegistry meterRegistry) {
+        this.maxAttempts = config.getMaxAttempts();
+        this.lockout = config.getLockout();
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(config.getMaximumSize())
+                .expireAfterWrite(lockout.toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+        this.locked = Counter.builder("customer.verify.locked")
+                .description("Verification attempts rejected without a query because of too many failures")
+                .register(meterRegistry);
+        Gauge.builder("customer.verify.tracked", failures, Cache::estimatedSize)
+                .description("Customers with recent failed verification attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts an attempt as failed until it is {@link #reset reset} or {@link #release released}.
+     *
+     * @throws VerificationLockedException if the customer has used up its attempts
+     */
+    public void reserve(Long customerId) {
+        Integer count = failures.getIfPresent(customerId);
+        // locked customers are rejected without a write, which would extend the lockout
+        if (Objects.isNull(count) || count < maxAttempts) {
+            count = failures.asMap().merge(customerId, 1, Integer::sum);
+            if (count <= maxAttempts) {
+                return;
+            }
+        }
+        locked.increment();
+        throw new VerificationLockedException(customerId, retryAfter(customerId));
+    }
+
+    /**
+     * Takes back an attempt that was not a wrong code, e.g. for an unknown or already verified customer.
+     */
+    public void release(Long customerId) {
+        failures.asMap().computeIfPresent(customerId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    public void reset(Long customerId) {
+        failures.invalidate(customerId);
+    }
+
+    private Duration retryAfter(Long customerId) {
+        long age = failures.policy().expireAfterWrite()
+                .map(expiration -> expiration.ageOf(customerId, TimeUnit.MILLISECONDS).orElse(0L))
+                .orElse(0L);
+        return lockout.minusMillis(age);
+    }
+
+}
@@ -0,0 +1,46 @@
+package ru.maxmorev.eshop.customer.api.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerVerify;
+
+/**
+ * JSON rendering of domain objects for {@code toString()} and therefore for logging.
+ * Uses a single immutable, thread-safe {@link ObjectWriter}: serializers are resolved once and
+ * Jackson recycles its char buffers per thread, so a call allocates little beyond the result.
+ * Secrets ({@code password}, {@code verifyCode}) are never rendered.
+ * Pass objects to SLF4J as {@code {}} arguments so rendering only happens when the level is enabled.
+ */
+public final class LogRenderer {
+
+    @JsonIgnoreProperties({"password", "verifyCode", "username",
+            "accountNonExpired", "accountNonLocked", "credentialsNonExpired", "enabled"})
+    private interface CustomerMixIn {
+    }
+
+    @JsonIgnoreProperties({"verifyCode"})
+    private interface CustomerVerifyMixIn {
+    }
+
+    private static final ObjectWriter WRITER = new ObjectMapper()
+            .addMixIn(Customer.class, CustomerMixIn.class)
+            .addMixIn(CustomerVerify.class, CustomerVerifyMixIn.class)
+            .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+            .writer();
+
+    private LogRenderer() {
+    }
+
+    public static String render(Object value) {
+        try {
+            return WRITER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return e.getMessage();
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+package ru.maxmorev.eshop.customer.api.util;
+
+import org.springframework.context.i18n.LocaleContext;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Carries the request thread's locale and security context over to a worker thread, so
+ * messages and method security behave the same as on the servlet thread.
+ */
+public final class RequestContext {
+
+    private RequestContext() {
+    }
+
+    public static <T> Supplier<T> capture(Supplier<T> task) {
+        LocaleContext localeContext = LocaleContextHolder.getLocaleContext();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+        return () -> {
+            LocaleContext previousLocale = LocaleContextHolder.getLocaleContext();
+            SecurityContext previousSecurity = SecurityContextHolder.getContext();
+            LocaleContextHolder.setLocaleContext(localeContext);
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                return task.get();
+            } finally {
+                LocaleContextHolder.setLocaleContext(previousLocale);
+                SecurityContextHolder.setContext(previousSecurity);
+            }
+        };
+    }
+
+}
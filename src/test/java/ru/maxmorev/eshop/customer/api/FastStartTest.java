@@ -0,0 +1,77 @@
+package ru.maxmorev.eshop.customer.api;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.maxmorev.eshop.customer.api.config.StartupTimeline;
+
+import java.time.Duration;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The test context creates the schema and the customers; a second application with the fast-start
+ * profile validates it against the same in-memory database.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DisplayName("Integration fast-start profile test")
+public class FastStartTest {
+
+    private static final Duration FIRST_200_BUDGET = Duration.ofSeconds(20);
+
+    private ConfigurableApplicationContext application;
+
+    @After
+    public void tearDown() {
+        if (Objects.nonNull(application)) {
+            application.close();
+        }
+    }
+
+    @Test
+    @DisplayName("should answer a customer lookup within the budget of a fast start")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void timeToFirst200Test() throws Exception {
+        long started = System.nanoTime();
+        application = new SpringApplicationBuilder(EshopCustomerApiApplication.class).run(
+                "--spring.profiles.active=fast-start",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:testdb");
+        String url = "http://localhost:" + application.getEnvironment().getProperty("local.server.port") + "/customer/id/10";
+        TestRestTemplate rest = new TestRestTemplate();
+        HttpStatus status = rest.getForEntity(url, String.class).getStatusCode();
+        while (status != HttpStatus.OK && System.nanoTime() - started < FIRST_200_BUDGET.toNanos()) {
+            Thread.sleep(50);
+            status = rest.getForEntity(url, String.class).getStatusCode();
+        }
+        Duration firstOk = Duration.ofNanos(System.nanoTime() - started);
+
+        assertEquals(HttpStatus.OK, status);
+        assertTrue("first 200 after " + firstOk.toMillis() + " ms", firstOk.compareTo(FIRST_200_BUDGET) < 0);
+        // non-critical beans are left to first use
+        assertFalse(application.getBeanFactory().containsSingleton("customerExportService"));
+        assertFalse(application.getBean(StartupTimeline.class).getSlowest().isEmpty());
+    }
+
+}
@@ -0,0 +1,185 @@
+package ru.maxmorev.eshop.customer.api.annotation;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@DisplayName("Email address validator test")
+public class EmailAddressValidatorTest {
+
+    /**
+     * The expression {@code CustomerInfo.email} used to be validated with.
+     */
+    static final Pattern RFC2822 = Pattern.compile("(?:[a-z0-9!#$%&'*+/=?^_`{|}~-]+(?:\\.[a-z0-9!#$%&'*+/=?^_`{|}~-]+)*|\"(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21\\x23-\\x5b\\x5d-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])*\")@(?:(?:[a-z0-9](?:[a-z0-9-]*[a-z0-9])?\\.)+[a-z0-9](?:[a-z0-9-]*[a-z0-9])?|\\[(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?|[a-z0-9-]*[a-z0-9]:(?:[\\x01-\\x08\\x0b\\x0c\\x0e-\\x1f\\x21-\\x5a\\x53-\\x7f]|\\\\[\\x01-\\x09\\x0b\\x0c\\x0e-\\x7f])+)\\])");
+
+    private static final String[] FRAGMENTS = {
+            "a", "z", "0", "9", "-", ".", "@", "\"", "\\", "[", "]", ":", " ", "\t", "\n", "\r",
+            "\u0000", "\u0001", "\u007f", "\u0080", "é", "A", "!", "~", "_",
+            "1", "2", "00", "099", "25", "249", "255", "256", "300", "ab", "a.b", "x-y"};
+    private static final String[] LABELS = {
+            "a", "ab", "a-b", "a--b", "-a", "a-", "0", "9z", "ab1", "!#", "~", "a.b", "a_b", "A"};
+    private static final String SPECIALS = "\t \\\"]@:[";
+
+    @Test
+    @DisplayName("should agree with the RFC 2822 regular expression on known cases")
+    public void knownCasesTest() {
+        List<String> cases = Arrays.asList(
+                "", "@", "a@", "@b.c", "a@b", "a@b.c", "test@titsonfire.store", "Test@titsonfire.store",
+                "a.b@c.d", ".a@c.d", "a.@c.d", "a..b@c.d", "a+tag@c-d.e", "a@-c.d", "a@c-.d", "a@c.d.",
+                "\"\"@c.d", "\"a b\"@c.d", "\"a\\\"b\"@c.d", "\"a\\\\\"@c.d", "\"a\\\"@c.d", "\"a@b\"@c.d",
+                "a@[1.2.3.4]", "a@[255.255.255.255]", "a@[256.1.1.1]", "a@[099.1.1.1]", "a@[1.2.3]", "a@[1.2.3.4.5]",
+                "a@[1.2.3.ipv6:x]", "a@[1.2.3.a-:x]", "a@[1.2.3.4:x]", "a@[1.2.3.tag:]", "a@[1.2.3.tag:a]b]",
+                "a@[1.2.3.tag:\\ x]", "a@[1.2.3.tag: x]", "a@[1.2.3.tag:\\\\ ]", "a@[1.2.3.tag:\\  ]",
+                "a@[1.2.3.tag:a\\]", "a@[1.2.3.tag:a]");
+        for (String email : cases) {
+            assertEquals(email, RFC2822.matcher(email).matches(), EmailAddressValidator.isValidAddress(email));
+        }
+    }
+
+    @Test
+    @DisplayName("should agree with the RFC 2822 regular expression on a random corpus")
+    public void randomCorpusTest() {
+        Random random = new Random(2822);
+        int valid = 0;
+        for (int i = 0; i < 200_000; i++) {
+            String email = email(random);
+            boolean expected = RFC2822.matcher(email).matches();
+            assertEquals(escape(email), expected, EmailAddressValidator.isValidAddress(email));
+            if (expected) {
+                valid++;
+            }
+        }
+        // the generator must exercise both outcomes
+        assertTrue("valid: " + valid, valid > 5_000 && valid < 195_000);
+    }
+
+    @Test(timeout = 1_000)
+    @DisplayName("should reject pathological input in linear time")
+    public void pathologicalInputTest() {
+        assertFalse(EmailAddressValidator.isValidAddress("a@" + repeat("a", 100_000) + "!"));
+        assertFalse(EmailAddressValidator.isValidAddress("a@" + repeat("aa.", 100_000) + "-"));
+        assertFalse(EmailAddressValidator.isValidAddress("\"" + repeat("\\a", 100_000)));
+        assertFalse(EmailAddressValidator.isValidAddress("a@[1.1.1.a:" + repeat("\\a", 100_000)));
+    }
+
+    @Test
+    @DisplayName("should accept null and reject empty")
+    public void nullTest() {
+        EmailAddressValidator validator = new EmailAddressValidator();
+        assertTrue(validator.isValid(null, null));
+        assertFalse(validator.isValid("", null));
+    }
+
+    /**
+     * Address-shaped strings: a local part, '@' and a host name or domain literal, with random
+     * characters from the edges of every character class and occasional insertions and deletions.
+     */
+    private static String email(Random random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextInt(4) == 0) {
+            int fragments = random.nextInt(12);
+            for (int i = 0; i < fragments; i++) {
+                sb.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            return sb.toString();
+        }
+        if (random.nextInt(3) == 0) {
+            sb.append('"');
+            appendContent(random, sb);
+            if (random.nextInt(8) != 0) {
+                sb.append('"');
+            }
+        } else {
+            int labels = 1 + random.nextInt(3);
+            for (int i = 0; i < labels; i++) {
+                if (i > 0 || random.nextInt(10) == 0) {
+                    sb.append('.');
+                }
+                sb.append(LABELS[random.nextInt(LABELS.length)]);
+            }
+        }
+        if (random.nextInt(10) != 0) {
+            sb.append('@');
+        }
+        if (random.nextBoolean()) {
+            int labels = 1 + random.nextInt(4);
+            for (int i = 0; i < labels; i++) {
+                if (i > 0) {
+                    sb.append('.');
+                }
+                sb.append(LABELS[random.nextInt(LABELS.length)]);
+            }
+        } else {
+            sb.append('[');
+            int octets = 3 + random.nextInt(2) - (random.nextInt(6) == 0 ? 1 : 0);
+            for (int i = 0; i < octets; i++) {
+                sb.append(random.nextInt(random.nextInt(5) == 0 ? 1300 : 300));
+                if (i < octets - 1 || random.nextInt(3) == 0) {
+                    sb.append('.');
+                }
+            }
+            if (random.nextBoolean()) {
+                sb.append(LABELS[random.nextInt(LABELS.length)]).append(':');
+                appendContent(random, sb);
+            }
+            if (random.nextInt(8) != 0) {
+                sb.append(']');
+            }
+            if (random.nextInt(10) == 0) {
+                sb.append(character(random));
+            }
+        }
+        if (random.nextInt(6) == 0) {
+            sb.insert(random.nextInt(sb.length() + 1), FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+        }
+        if (random.nextInt(6) == 0 && sb.length() > 0) {
+            sb.deleteCharAt(random.nextInt(sb.length()));
+        }
+        return sb.toString();
+    }
+
+    private static void appendContent(Random random, StringBuilder sb) {
+        int length = random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            if (random.nextInt(3) == 0) {
+                sb.append('\\');
+            }
+            sb.append(character(random));
+        }
+    }
+
+    private static char character(Random random) {
+        if (random.nextInt(10) == 0) {
+            return (char) random.nextInt(0x90);
+        }
+        if (random.nextInt(4) == 0) {
+            return SPECIALS.charAt(random.nextInt(SPECIALS.length()));
+        }
+        return (char) (0x21 + random.nextInt(0x5e));
+    }
+
+    private static String repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder(s.length() * times);
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            sb.append(c < 0x20 || c > 0x7e ? String.format("\\u%04x", (int) c) : String.valueOf(c));
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,113 @@
+package ru.maxmorev.eshop.customer.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "customer.async.enabled=true")
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+@DisplayName("Integration controller (AsyncCustomerController) test")
+public class AsyncCustomerControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private final ObjectMapper mapper = new ObjectMapper().addMixIn(Customer.class, CustomerRequestMixIn.class);
+
+    @Test
+    @DisplayName("Should create customer on the hashing pool")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    })
+    public void createCustomerTest() throws Exception {
+        Customer customer = Customer
+                .builder()
+                .email("test@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build();
+        MvcResult started = mockMvc.perform(post("/customer/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("test@titsonfire.store")))
+                .andExpect(jsonPath("$.id").isNumber());
+    }
+
+    @Test
+    @DisplayName("Should find customer by id on the database pool")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void findByIdTest() throws Exception {
+        MvcResult started = mockMvc.perform(get("/customer/id/10"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("test@titsonfire.store")));
+    }
+
+    @Test
+    @DisplayName("Should map errors of async handlers to the same Message body")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void findByEmailErrorTest() throws Exception {
+        MvcResult started = mockMvc.perform(get("/customer/email/test2@titsonfire.store"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andDo(print())
+                .andExpect(status().is(400))
+                .andExpect(jsonPath("$.message", is("User with test2@titsonfire.store email not found")))
+                .andExpect(jsonPath("$.status", is("error")));
+    }
+
+}
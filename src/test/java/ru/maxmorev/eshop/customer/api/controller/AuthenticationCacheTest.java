@@ -0,0 +1,96 @@
+package ru.maxmorev.eshop.customer.api.controller;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.service.CachingAuthenticationProvider;
+import ru.maxmorev.eshop.customer.api.service.CustomerService;
+
+import static org.junit.Assert.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+@DisplayName("Integration HTTP Basic authentication cache test")
+public class AuthenticationCacheTest {
+
+    private static final String EMAIL = "admin@titsonfire.store";
+    private static final String PASSWORD = "helloFreakBitches";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private CachingAuthenticationProvider authenticationProvider;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Before
+    public void setUp() {
+        authenticationProvider.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("should skip the lookup for repeated credentials until the customer changes")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    })
+    public void authenticationCacheTest() throws Exception {
+        Customer admin = customerService.createAdminAndVerifyByEmail(Customer
+                .builder()
+                .email(EMAIL)
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password(PASSWORD)
+                .build());
+        customerService.verify(admin.getId(), admin.getVerifyCode());
+        double hits = gets("hit");
+        double misses = gets("miss");
+
+        mockMvc.perform(get("/customers").with(httpBasic(EMAIL, PASSWORD))).andExpect(status().isOk());
+        mockMvc.perform(get("/customers").with(httpBasic(EMAIL, PASSWORD))).andExpect(status().isOk());
+        assertEquals(misses + 1, gets("miss"), 0);
+        assertEquals(hits + 1, gets("hit"), 0);
+
+        // a cached entry must not vouch for other credentials
+        mockMvc.perform(get("/customers").with(httpBasic(EMAIL, "wrong"))).andExpect(status().isUnauthorized());
+
+        Customer changed = customerService.findById(admin.getId()).get();
+        changed.setCity("Toronto");
+        customerService.updateInfo(changed);
+        mockMvc.perform(get("/customers").with(httpBasic(EMAIL, PASSWORD))).andExpect(status().isOk());
+        assertEquals(hits + 1, gets("hit"), 0);
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets")
+                .tag("cache", "customer.auth")
+                .tag("result", result)
+                .functionCounter()
+                .count();
+    }
+
+}
@@ -0,0 +1,102 @@
+package ru.maxmorev.eshop.customer.api.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Measures how long each signup keeps a pooled connection checked out ({@code hikaricp.connections.usage})
+ * and checks that no checkout lasts as long as a password hash, i.e. hashing runs outside the transaction.
+ */
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
+@SpringBootTest(properties = "management.metrics.distribution.sla.hikaricp.connections.usage=" + ConnectionHoldTimeTest.HOLD_LIMIT_MILLIS + "ms")
+@DisplayName("Integration connection hold time test")
+public class ConnectionHoldTimeTest {
+
+    static final long HOLD_LIMIT_MILLIS = 20;
+    private static final int REQUESTS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ObjectMapper mapper = new ObjectMapper().addMixIn(Customer.class, CustomerRequestMixIn.class);
+
+    @Test
+    @DisplayName("should not hold a connection while hashing the password")
+    @Sql(value = "classpath:db/customer/clean-up.sql",
+            config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void createCustomerHoldTimeTest() throws Exception {
+        // first request pays for statement preparation and class loading
+        create(0);
+        HistogramSnapshot before = connectionUsage().takeSnapshot();
+        for (int i = 1; i <= REQUESTS; i++) {
+            create(i);
+        }
+        HistogramSnapshot after = connectionUsage().takeSnapshot();
+
+        Timer hashing = meterRegistry.get("customer.hashing.time").timer();
+        assumeTrue("hashing must be slower than the hold limit for this test to be meaningful",
+                hashing.mean(TimeUnit.MILLISECONDS) > HOLD_LIMIT_MILLIS);
+        long checkouts = after.count() - before.count();
+        assertTrue("checkouts: " + checkouts, checkouts >= REQUESTS);
+        assertEquals("connections held longer than " + HOLD_LIMIT_MILLIS + " ms",
+                0, longerThanLimit(after) - longerThanLimit(before));
+    }
+
+    private void create(int i) throws Exception {
+        Customer customer = Customer
+                .builder()
+                .email("hold-" + i + "@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build();
+        mockMvc.perform(post("/customer/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andExpect(status().isOk());
+    }
+
+    private Timer connectionUsage() {
+        return meterRegistry.get("hikaricp.connections.usage").timer();
+    }
+
+    private static long longerThanLimit(HistogramSnapshot snapshot) {
+        for (CountAtBucket bucket : snapshot.histogramCounts()) {
+            if (bucket.bucket(TimeUnit.MILLISECONDS) == HOLD_LIMIT_MILLIS) {
+                return snapshot.count() - (long) bucket.count();
+            }
+        }
+        throw new IllegalStateException("No " + HOLD_LIMIT_MILLIS + " ms bucket in " + snapshot);
+    }
+
+}
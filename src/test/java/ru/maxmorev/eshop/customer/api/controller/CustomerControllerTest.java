@@ -1,5 +1,7 @@
 package ru.maxmorev.eshop.customer.api.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.runner.RunWith;
@@ -19,19 +21,30 @@ import ru.maxmorev.eshop.customer.api.entities.Customer;
 import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
 import ru.maxmorev.eshop.customer.api.rest.request.CustomerVerify;
 import ru.maxmorev.eshop.customer.api.rest.response.CustomerDTO;
+import ru.maxmorev.eshop.customer.api.service.CustomerImportService;
+import ru.maxmorev.eshop.customer.api.service.CustomerLookupService;
 import ru.maxmorev.eshop.customer.api.service.CustomerService;
+import ru.maxmorev.eshop.customer.api.service.VerifyAttempts;
 
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 @SpringBootTest
@@ -45,6 +58,10 @@ public class CustomerControllerTest {
     private MockMvc mockMvc;
     @Autowired
     private CustomerService customerService;
+    @Autowired
+    private VerifyAttempts verifyAttempts;
+
+    private final ObjectMapper mapper = new ObjectMapper().addMixIn(Customer.class, CustomerRequestMixIn.class);
 
     @Test
     @DisplayName("Should create customer from RequestBody")
@@ -69,13 +86,127 @@ public class CustomerControllerTest {
                 .build();
         mockMvc.perform(post("/customer/")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(customer.toString()))
+                .content(mapper.writeValueAsString(customer)))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.email", is("test@titsonfire.store")))
                 .andExpect(jsonPath("$.id").isNumber());
     }
 
+    @Test
+    @DisplayName("Should replay customer creation for a repeated Idempotency-Key")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    })
+    public void createCustomerIdempotencyTest() throws Exception {
+        Customer customer = Customer
+                .builder()
+                .email("test@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build();
+        String key = "create-" + System.nanoTime();
+        String body = mapper.writeValueAsString(customer);
+        String first = mockMvc.perform(post("/customer/")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(first).get("id").asLong();
+        // a retry must not hit the unique email constraint
+        mockMvc.perform(post("/customer/")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is((int) id)));
+        customer.setCity("Toronto");
+        mockMvc.perform(post("/customer/")
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andDo(print())
+                .andExpect(status().is(422))
+                .andExpect(jsonPath("$.message", is("Idempotency-Key " + key + " was already used for a different request")));
+        // without a key the unique constraint still applies
+        mockMvc.perform(post("/customer/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().is(500));
+    }
+
+    @Test
+    @DisplayName("Should keep Idempotency-Keys of different callers apart")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    })
+    public void idempotencyKeyScopedByCallerTest() throws Exception {
+        Customer customer = Customer
+                .builder()
+                .email("test@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build();
+        String key = "create-" + System.nanoTime();
+        String first = mockMvc.perform(post("/customer/")
+                .with(request -> {
+                    request.setRemoteAddr("10.0.0.1");
+                    return request;
+                })
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long id = mapper.readTree(first).get("id").asLong();
+        // another anonymous client with the same key gets its own signup, not the first one's customer
+        customer.setEmail("test-other@titsonfire.store");
+        mockMvc.perform(post("/customer/")
+                .with(request -> {
+                    request.setRemoteAddr("10.0.0.2");
+                    return request;
+                })
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("test-other@titsonfire.store")))
+                .andExpect(jsonPath("$.id", not(is((int) id))));
+        // as does an authenticated caller from the first client's address
+        customer.setEmail("test-user@titsonfire.store");
+        mockMvc.perform(post("/customer/")
+                .with(user("test@titsonfire.store").password("helloFreakBitches").authorities((GrantedAuthority) () -> "CUSTOMER"))
+                .with(request -> {
+                    request.setRemoteAddr("10.0.0.1");
+                    return request;
+                })
+                .header("Idempotency-Key", key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("test-user@titsonfire.store")));
+    }
+
     @Test
     @DisplayName("Should create admin from RequestBody")
     @SqlGroup({
@@ -98,14 +229,66 @@ public class CustomerControllerTest {
                 .password("helloFreakBitches")
                 .build();
         mockMvc.perform(post("/admin/")
+                .with(user("admin@titsonfire.store")
+                        .password("admin")
+                        .authorities((GrantedAuthority) () -> "ADMIN"))
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(customer.toString()))
+                .content(mapper.writeValueAsString(customer)))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.email", is("admin@titsonfire.store")))
                 .andExpect(jsonPath("$.authorities[0].authority", is("ADMIN")))
                 .andExpect(jsonPath("$.verified", is(false)))
-                .andExpect(jsonPath("$.id").isNumber());
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andExpect(jsonPath("$.verifyCode").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should not let anonymous callers create an admin and reach the export with it")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    })
+    public void createAdminForbiddenTest() throws Exception {
+        Customer customer = Customer
+                .builder()
+                .email("admin@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build();
+        mockMvc.perform(post("/admin/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andDo(print())
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/admin/")
+                .with(user("test@titsonfire.store")
+                        .password("customer")
+                        .authorities((GrantedAuthority) () -> "CUSTOMER"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andExpect(status().isForbidden());
+        assertFalse(customerService.findByEmail("admin@titsonfire.store").isPresent());
+        // a self-registered customer learns no verification code to turn into a login
+        mockMvc.perform(post("/customer/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(customer)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authorities[0].authority", is("CUSTOMER")))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andExpect(jsonPath("$.verifyCode").doesNotExist());
+        mockMvc.perform(get("/customers/export"))
+                .andDo(print())
+                .andExpect(status().isForbidden());
     }
 
     @Test
@@ -132,7 +315,7 @@ public class CustomerControllerTest {
                 .build();
         mockMvc.perform(post("/customer/")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(customer.toString()))
+                .content(mapper.writeValueAsString(customer)))
                 .andDo(print())
                 .andExpect(status().is(500))
                 .andExpect(jsonPath("$.message", is("Internal storage error")));
@@ -163,7 +346,7 @@ public class CustomerControllerTest {
                 .build();
         mockMvc.perform(post("/customer/")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(customer.toString()))
+                .content(mapper.writeValueAsString(customer)))
                 .andDo(print())
                 .andExpect(status().is(400))
                 .andExpect(jsonPath("$.message", is("Validation error")))
@@ -194,7 +377,7 @@ public class CustomerControllerTest {
                 .build();
         mockMvc.perform(post("/customer/")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(customer.toString()))
+                .content(mapper.writeValueAsString(customer)))
                 .andDo(print())
                 .andExpect(status().is(400))
                 .andExpect(jsonPath("$.message", is("Validation error")))
@@ -227,7 +410,7 @@ public class CustomerControllerTest {
                 .build();
         mockMvc.perform(post("/customer/")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(customer.toString()))
+                .content(mapper.writeValueAsString(customer)))
                 .andDo(print())
                 .andExpect(status().is(400))
                 .andExpect(jsonPath("$.message", is("Validation error")))
@@ -307,7 +490,7 @@ public class CustomerControllerTest {
         cv.setVerifyCode("TKYOC");
         mockMvc.perform(post("/customer/verify/")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(cv.toString()))
+                .content(mapper.writeValueAsString(cv)))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.verified", is(true)));
@@ -329,12 +512,47 @@ public class CustomerControllerTest {
         cv.setVerifyCode("FAILy");//incorrect verify code
         mockMvc.perform(post("/customer/verify/")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(cv.toString()))
+                .content(mapper.writeValueAsString(cv)))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.verified", is(false)));
     }
 
+    @Test
+    @DisplayName("Should answer 429 once verification attempts are used up")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void verifyCustomerLockedTest() throws Exception {
+        verifyAttempts.reset(10L);
+        CustomerVerify cv = new CustomerVerify();
+        cv.setId(10L);
+        cv.setVerifyCode("FAILy");//incorrect verify code
+        try {
+            for (int i = 0; i < 5; i++) {
+                mockMvc.perform(post("/customer/verify/")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(cv)))
+                        .andExpect(status().isOk());
+            }
+            cv.setVerifyCode("TKYOC");
+            mockMvc.perform(post("/customer/verify/")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(cv)))
+                    .andDo(print())
+                    .andExpect(status().is(429))
+                    .andExpect(header().exists("Retry-After"))
+                    .andExpect(jsonPath("$.status", is("error")));
+        } finally {
+            verifyAttempts.reset(10L);
+        }
+    }
+
     @Test
     @DisplayName("Should expect error while verify customer from RequestBody")
     @SqlGroup({
@@ -351,7 +569,7 @@ public class CustomerControllerTest {
         cv.setVerifyCode("FAILy");//incorrect verify code
         mockMvc.perform(post("/customer/verify/")
                 .contentType(MediaType.APPLICATION_JSON)
-                .content(cv.toString()))
+                .content(mapper.writeValueAsString(cv)))
                 .andDo(print())
                 .andExpect(status().is(400))
                 .andExpect(jsonPath("$.message", is("Customer with id 16 not found")));
@@ -411,4 +629,343 @@ public class CustomerControllerTest {
                 .andExpect(jsonPath("$.id").isNumber());
     }
 
+    @Test
+    @DisplayName("Should expect public view by default and the entity with view=full")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void findByIdViewTest() throws Exception {
+        mockMvc.perform(get("/customer/id/10"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city", is("Moscow")))
+                .andExpect(jsonPath("$.version", is(0)))
+                .andExpect(jsonPath("$.password").doesNotExist())
+                .andExpect(jsonPath("$.verifyCode").doesNotExist())
+                .andExpect(jsonPath("$.authorities").doesNotExist());
+        mockMvc.perform(get("/customer/email/test@titsonfire.store").param("view", "full"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authorities[0].authority", is("CUSTOMER")))
+                .andExpect(jsonPath("$.verified", is(false)));
+        mockMvc.perform(get("/customer/id/10").param("view", "secret"))
+                .andExpect(status().is(400))
+                .andExpect(jsonPath("$.message", is("Unsupported view secret")));
+    }
+
+    @Test
+    @DisplayName("Should answer conditional reads with 304 until the customer changes")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void conditionalGetTest() throws Exception {
+        mockMvc.perform(get("/customer/id/10"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"10.0.public\""))
+                .andExpect(header().string("Cache-Control", containsString("no-cache")));
+        mockMvc.perform(get("/customer/id/10").header("If-None-Match", "\"10.0.public\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"10.0.public\""))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/customer/email/test@titsonfire.store").param("view", "full").header("If-None-Match", "W/\"10.0.full\""))
+                .andExpect(status().isNotModified());
+        // the public and full views of one version are different representations
+        mockMvc.perform(get("/customer/id/10").param("view", "full").header("If-None-Match", "\"10.0.public\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"10.0.full\""));
+
+        Customer customer = customerService.findById(10L).get();
+        customer.setCity("Toronto");
+        customerService.updateInfo(customer);
+        mockMvc.perform(get("/customer/id/10").header("If-None-Match", "\"10.0.public\""))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"10.1.public\""))
+                .andExpect(jsonPath("$.city", is("Toronto")));
+    }
+
+    @Test
+    @DisplayName("Should look up customers by ids and emails with explicit misses")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void lookupCustomersTest() throws Exception {
+        mockMvc.perform(post("/customers/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[15,16,10,15],\"emails\":[\"test@titsonfire.store\",\"nobody@titsonfire.store\"]}"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ids['15'].email", is("test-error@titsonfire.store")))
+                .andExpect(jsonPath("$.ids['10'].email", is("test@titsonfire.store")))
+                .andExpect(jsonPath("$.ids['16']").value(nullValue()))
+                .andExpect(jsonPath("$.emails['test@titsonfire.store'].id", is(10)))
+                .andExpect(jsonPath("$.emails['nobody@titsonfire.store']").value(nullValue()))
+                .andExpect(jsonPath("$.emails['test@titsonfire.store'].password").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should reject lookups of too many keys")
+    public void lookupCustomersLimitTest() throws Exception {
+        String ids = LongStream.rangeClosed(1, CustomerLookupService.MAX_KEYS + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        mockMvc.perform(post("/customers/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[" + ids + "]}"))
+                .andExpect(status().is(400))
+                .andExpect(jsonPath("$.status", is("error")));
+    }
+
+    @Test
+    @DisplayName("Should import customers from NDJSON and report every line")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void importCustomersTest() throws Exception {
+        // a supplied id is ignored rather than failing the chunk's batch insert
+        Customer valid = Customer
+                .builder()
+                .id(10L)
+                .email("import@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build();
+        Customer invalid = Customer
+                .builder()
+                .email("import2@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build();
+        Customer duplicate = Customer
+                .builder()
+                .email("test@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build();
+        String body = mapper.writeValueAsString(valid) + "\n"
+                + mapper.writeValueAsString(invalid) + "\n"
+                + "{not json\n"
+                + mapper.writeValueAsString(duplicate) + "\n";
+        String report = mockMvc.perform(post("/customer/batch")
+                .contentType(CustomerImportService.NDJSON)
+                .content(body)
+                .with(user("admin@titsonfire.store")
+                        .password("admin")
+                        .authorities((GrantedAuthority) () -> "ADMIN")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        String[] lines = report.split("\n");
+        assertEquals(4, lines.length);
+        JsonNode created = mapper.readTree(lines[0]);
+        assertEquals(1, created.get("line").asInt());
+        assertEquals("success", created.get("status").asText());
+        assertTrue(created.get("id").isNumber());
+        assertTrue(created.get("id").asLong() != 10L);
+        assertEquals("test@titsonfire.store", customerService.findById(10L).get().getEmail());
+        JsonNode notValid = mapper.readTree(lines[1]);
+        assertEquals("error", notValid.get("status").asText());
+        assertEquals("address", notValid.get("errors").get(0).get("field").asText());
+        assertEquals("error", mapper.readTree(lines[2]).get("status").asText());
+        JsonNode notUnique = mapper.readTree(lines[3]);
+        assertEquals("error", notUnique.get("status").asText());
+        assertEquals("User with test@titsonfire.store email already exists", notUnique.get("errors").get(0).get("message").asText());
+
+        assertTrue(customerService.findByEmail("import@titsonfire.store").isPresent());
+        assertFalse(customerService.findByEmail("import2@titsonfire.store").isPresent());
+    }
+
+    @Test
+    @DisplayName("Should deny import for anonymous callers and customers")
+    public void importCustomersForbiddenTest() throws Exception {
+        String body = "{\"email\":\"import@titsonfire.store\"}\n";
+        mockMvc.perform(post("/customer/batch")
+                .contentType(CustomerImportService.NDJSON)
+                .content(body))
+                .andDo(print())
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/customer/batch")
+                .contentType(CustomerImportService.NDJSON)
+                .content(body)
+                .with(user("test@titsonfire.store")
+                        .password("customer")
+                        .authorities((GrantedAuthority) () -> "CUSTOMER")))
+                .andDo(print())
+                .andExpect(status().isForbidden());
+        assertFalse(customerService.findByEmail("import@titsonfire.store").isPresent());
+    }
+
+    @Test
+    @DisplayName("Should export customers as NDJSON without secrets")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void exportCustomersTest() throws Exception {
+        String export = mockMvc.perform(get("/customers/export")
+                .with(user("admin@titsonfire.store")
+                        .password("admin")
+                        .authorities((GrantedAuthority) () -> "ADMIN")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString("password"))))
+                .andExpect(content().string(not(containsString("TKYOC"))))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String[] lines = export.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(10, mapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("test@titsonfire.store", mapper.readTree(lines[0]).get("email").asText());
+        assertEquals(15, mapper.readTree(lines[1]).get("id").asLong());
+    }
+
+    @Test
+    @DisplayName("Should export customers as CSV")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void exportCustomersCsvTest() throws Exception {
+        mockMvc.perform(get("/customers/export")
+                .param("format", "csv")
+                .with(user("remote")
+                        .password("remote")
+                        .authorities((GrantedAuthority) () -> "REMOTE")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("id,email,fullName")))
+                .andExpect(content().string(containsString("15,test-error@titsonfire.store,Maxim V Morev,Russia,111123,Moscow,Address : test for error with amount in shopping cart set,false")));
+    }
+
+    @Test
+    @DisplayName("Should deny export for customers")
+    public void exportCustomersForbiddenTest() throws Exception {
+        mockMvc.perform(get("/customers/export")
+                .with(user("test@titsonfire.store")
+                        .password("customer")
+                        .authorities((GrantedAuthority) () -> "CUSTOMER")))
+                .andDo(print())
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @DisplayName("Should list customers page by page with a continuation token")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void listCustomersTest() throws Exception {
+        String firstPage = mockMvc.perform(get("/customers")
+                .param("limit", "1")
+                .with(user("admin@titsonfire.store")
+                        .password("admin")
+                        .authorities((GrantedAuthority) () -> "ADMIN")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(10)))
+                .andExpect(jsonPath("$.next").isString())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String next = mapper.readTree(firstPage).get("next").asText();
+
+        mockMvc.perform(get("/customers")
+                .param("limit", "1")
+                .param("after", next)
+                .with(user("admin@titsonfire.store")
+                        .password("admin")
+                        .authorities((GrantedAuthority) () -> "ADMIN")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(15)))
+                .andExpect(jsonPath("$.next", nullValue()));
+    }
+
+    @Test
+    @DisplayName("Should list newest customers first and apply filters")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void listCustomersFilterTest() throws Exception {
+        mockMvc.perform(get("/customers")
+                .param("sort", "created")
+                .param("verified", "false")
+                .param("country", "Russia")
+                .param("createdFrom", "2019-08-01T00:00:00.000Z")
+                .with(user("admin@titsonfire.store")
+                        .password("admin")
+                        .authorities((GrantedAuthority) () -> "ADMIN")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].id", is(15)))
+                .andExpect(jsonPath("$.items[1].id", is(10)))
+                .andExpect(jsonPath("$.next", nullValue()));
+
+        mockMvc.perform(get("/customers")
+                .param("country", "Canada")
+                .with(user("admin@titsonfire.store")
+                        .password("admin")
+                        .authorities((GrantedAuthority) () -> "ADMIN")))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+    }
+
 }
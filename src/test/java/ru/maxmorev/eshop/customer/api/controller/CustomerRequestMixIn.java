@@ -0,0 +1,17 @@
+package ru.maxmorev.eshop.customer.api.controller;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Lets the tests write the fields of a {@link ru.maxmorev.eshop.customer.api.entities.Customer}
+ * that the API only ever reads, as a client building its request body would.
+ */
+abstract class CustomerRequestMixIn {
+
+    @JsonProperty(access = JsonProperty.Access.READ_WRITE)
+    private String password;
+
+    @JsonProperty(access = JsonProperty.Access.READ_WRITE)
+    private String verifyCode;
+
+}
@@ -0,0 +1,129 @@
+package ru.maxmorev.eshop.customer.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.service.CustomerPayloadCache;
+import ru.maxmorev.eshop.customer.api.service.CustomerService;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "customer.payload-cache.enabled=true")
+@AutoConfigureMockMvc
+@RunWith(SpringRunner.class)
+@DisplayName("Integration serialized customer payload cache test")
+public class PayloadCacheTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private CustomerPayloadCache payloadCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUp() {
+        payloadCache.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("should serve cached bytes, gzip compressed on request, until the customer changes")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void payloadCacheTest() throws Exception {
+        mockMvc.perform(get("/customer/id/10").param("view", "full"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city", is("Moscow")));
+        // the row changes behind the service's back: a cached payload must not see it
+        jdbcTemplate.update("update customer set city = 'Changed' where id = 10");
+
+        MvcResult gzip = mockMvc.perform(get("/customer/id/10").param("view", "full").header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"10.0.full\""))
+                .andReturn();
+        JsonNode body;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getResponse().getContentAsByteArray()))) {
+            body = objectMapper.readTree(in);
+        }
+        assertEquals("Moscow", body.get("city").asText());
+        assertEquals("CUSTOMER", body.get("authorities").get(0).get("authority").asText());
+
+        mockMvc.perform(get("/customer/id/10").param("view", "full").header("Accept-Encoding", "gzip;q=0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(jsonPath("$.city", is("Moscow")));
+        // a malformed q value counts as the default 1 rather than failing the request
+        mockMvc.perform(get("/customer/id/10").param("view", "full").header("Accept-Encoding", "gzip;q=abc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"));
+
+        Customer customer = customerService.findById(10L).get();
+        customer.setCity("Toronto");
+        customerService.updateInfo(customer);
+        mockMvc.perform(get("/customer/id/10").param("view", "full"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"10.1.full\""))
+                .andExpect(jsonPath("$.city", is("Toronto")));
+    }
+
+    @Test
+    @DisplayName("should not cache a payload read before an update whose eviction already ran")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void readRacingWithUpdateTest() throws Exception {
+        long generation = payloadCache.generation(10L);
+        byte[] stale = objectMapper.writeValueAsBytes(customerService.findById(10L).get());
+
+        Customer customer = customerService.findById(10L).get();
+        customer.setCity("Toronto");
+        customerService.updateInfo(customer);
+        payloadCache.put(10L, "FULL", "\"10.0.full\"", stale, generation);
+
+        assertFalse(payloadCache.get(10L, "FULL").isPresent());
+        mockMvc.perform(get("/customer/id/10").param("view", "full").header("If-None-Match", "\"10.0.full\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"10.1.full\""))
+                .andExpect(jsonPath("$.city", is("Toronto")));
+    }
+
+}
@@ -0,0 +1,54 @@
+package ru.maxmorev.eshop.customer.api.entities;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@DisplayName("Customer authorities bitmask test")
+public class CustomerAuthoritiesTest {
+
+    @Test
+    @DisplayName("should parse the legacy comma separated representation")
+    public void parseTest() {
+        assertEquals(0, CustomerAuthorities.parse(null));
+        assertEquals(0, CustomerAuthorities.parse(""));
+        assertEquals(CustomerAuthorities.bit(AuthorityValues.CUSTOMER), CustomerAuthorities.parse("CUSTOMER"));
+        assertEquals(CustomerAuthorities.bit(AuthorityValues.ADMIN) | CustomerAuthorities.bit(AuthorityValues.CUSTOMER),
+                CustomerAuthorities.parse("ADMIN,CUSTOMER"));
+        assertEquals(CustomerAuthorities.parse("ADMIN,CUSTOMER"), CustomerAuthorities.parse(" CUSTOMER , ADMIN ,"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @DisplayName("should reject unknown authorities")
+    public void parseUnknownTest() {
+        CustomerAuthorities.parse("CUSTOMER,ROOT");
+    }
+
+    @Test
+    @DisplayName("should grant the authorities of every mask bit")
+    public void grantedTest() {
+        assertTrue(CustomerAuthorities.granted(0).isEmpty());
+        for (int mask = 0; mask < 1 << AuthorityValues.values().length; mask++) {
+            Set<String> granted = CustomerAuthorities.granted(mask).stream()
+                    .map(CustomerAuthority::getAuthority)
+                    .collect(Collectors.toSet());
+            Set<String> expected = CustomerAuthorities.toSet(mask).stream()
+                    .map(Enum::name)
+                    .collect(Collectors.toSet());
+            assertEquals(expected, granted);
+            assertEquals(mask, CustomerAuthorities.toMask(CustomerAuthorities.toSet(mask)));
+        }
+        assertEquals(EnumSet.of(AuthorityValues.ADMIN, AuthorityValues.REMOTE),
+                CustomerAuthorities.toSet(CustomerAuthorities.parse("REMOTE,ADMIN")));
+        assertSame(CustomerAuthorities.granted(3), CustomerAuthorities.granted(3));
+    }
+
+}
@@ -0,0 +1,68 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DisplayName("Integration authorities to authority_mask migration test")
+public class AuthorityMaskMigrationTest {
+
+    private static final String LEGACY_COLUMN_COUNT = "select count(*) from information_schema.columns " +
+            "where upper(table_name) = 'CUSTOMER' and upper(column_name) = 'AUTHORITIES'";
+
+    @Autowired
+    private AuthorityMaskMigration migration;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.execute("alter table customer drop column if exists authorities");
+    }
+
+    @Test
+    @DisplayName("should convert the legacy column into masks once and drop it")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void migrationTest() {
+        jdbcTemplate.execute("alter table customer add column authorities varchar(255)");
+        jdbcTemplate.update("update customer set authority_mask = 0");
+        jdbcTemplate.update("update customer set authorities = 'ADMIN,CUSTOMER' where id = 10");
+        jdbcTemplate.update("update customer set authorities = ' REMOTE, CUSTOMER' where id = 15");
+
+        migration.afterPropertiesSet();
+
+        assertEquals(3, mask(10));
+        assertEquals(6, mask(15));
+        assertEquals(0, jdbcTemplate.queryForObject(LEGACY_COLUMN_COUNT, Integer.class).intValue());
+
+        // without the legacy column a second run must not touch the masks
+        jdbcTemplate.update("update customer set authority_mask = 1 where id = 10");
+        migration.afterPropertiesSet();
+        assertEquals(1, mask(10));
+        assertEquals(6, mask(15));
+    }
+
+    private int mask(long id) {
+        return jdbcTemplate.queryForObject("select authority_mask from customer where id = ?", Integer.class, id);
+    }
+
+}
@@ -0,0 +1,60 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.maxmorev.eshop.customer.api.config.AuthenticationCacheConfig;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Authentication cache invalidation race test")
+public class CachingAuthenticationProviderTest {
+
+    private static final String EMAIL = "test@titsonfire.store";
+
+    @Test
+    @DisplayName("should not cache a login whose user was loaded before a committed password change")
+    public void passwordChangedBetweenLoadAndPutTest() {
+        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+        AtomicReference<String> storedHash = new AtomicReference<>(passwordEncoder.encode("old"));
+        AtomicReference<CachingAuthenticationProvider> provider = new AtomicReference<>();
+        UserDetailsService userDetailsService = new UserDetailsService() {
+            private boolean changeCommitted;
+
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                UserDetails user = User.withUsername(username).password(storedHash.get()).authorities("CUSTOMER").build();
+                if (!changeCommitted) {
+                    // the password change commits after this load, before the login caches its result
+                    changeCommitted = true;
+                    storedHash.set(passwordEncoder.encode("new"));
+                    provider.get().onCustomerChanged(new CustomerChangedEvent(10L, username));
+                }
+                return user;
+            }
+        };
+        provider.set(new CachingAuthenticationProvider(userDetailsService, passwordEncoder,
+                new AuthenticationCacheConfig(), new SimpleMeterRegistry()));
+
+        // loaded before the change, so this login still succeeds once
+        assertTrue(provider.get().authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "old")).isAuthenticated());
+
+        assertThrows(BadCredentialsException.class,
+                () -> provider.get().authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "old")));
+        assertEquals(EMAIL, ((UserDetails) provider.get()
+                .authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "new"))
+                .getPrincipal()).getUsername());
+    }
+
+}
@@ -0,0 +1,133 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.repository.CustomerRepository;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "customer.cache.enabled=true")
+@DisplayName("Integration Customer near cache test")
+public class CustomerCacheTest {
+
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private CustomerCache customerCache;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Before
+    public void setUp() {
+        customerCache.invalidateAll();
+    }
+
+    @Test
+    @DisplayName("should serve repeated reads by id and email from the cache")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void cacheHitTest() {
+        assertEquals("Maxim V Morev", customerService.findById(10L).get().getFullName());
+        // the row changes behind the service's back: a cached read must not see it
+        jdbcTemplate.update("update customer set fullname = 'Changed' where id = 10");
+
+        assertEquals("Maxim V Morev", customerService.findById(10L).get().getFullName());
+        assertEquals("Maxim V Morev", customerService.findByEmail("test@titsonfire.store").get().getFullName());
+        double hits = meterRegistry.get("cache.gets")
+                .tag("cache", "customer.byId")
+                .tag("result", "hit")
+                .functionCounter()
+                .count();
+        assertTrue(hits >= 2);
+    }
+
+    @Test
+    @DisplayName("should not share cached state with callers")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void cacheCopyTest() {
+        customerService.findById(10L).get().setCity("Toronto");
+        assertEquals("Moscow", customerService.findById(10L).get().getCity());
+    }
+
+    @Test
+    @DisplayName("should invalidate cached customer after updateInfo")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void cacheInvalidationTest() {
+        Optional<Customer> customer = customerService.findByEmail("test@titsonfire.store");
+        assertTrue(customer.isPresent());
+        Customer c = customer.get();
+        c.setCity("Toronto");
+        customerService.updateInfo(c);
+
+        assertEquals("Toronto", customerService.findById(10L).get().getCity());
+        assertEquals("Toronto", customerService.findByEmail("test@titsonfire.store").get().getCity());
+    }
+
+    @Test
+    @DisplayName("should not cache a customer loaded before an update whose eviction already ran")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void loadRacingWithUpdateTest() {
+        long byId = customerCache.generation(10L);
+        long byEmail = customerCache.generation("test@titsonfire.store");
+        Customer stale = customerRepository.findById(10L).get();
+
+        Customer c = customerService.findById(10L).get();
+        c.setCity("Toronto");
+        customerService.updateInfo(c);
+        // the slow load completes after the update committed and evicted
+        customerCache.put(stale, 10L, byId);
+        customerCache.put(stale, "test@titsonfire.store", byEmail);
+
+        assertFalse(customerCache.getById(10L).isPresent());
+        assertEquals("Toronto", customerService.findById(10L).get().getCity());
+        assertEquals("Toronto", customerService.findByEmail("test@titsonfire.store").get().getCity());
+    }
+
+}
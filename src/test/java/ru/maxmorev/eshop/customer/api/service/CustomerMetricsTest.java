@@ -0,0 +1,67 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DisplayName("Integration Customer metrics test")
+public class CustomerMetricsTest {
+
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("should time operations by outcome")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void outcomeTest() {
+        long found = count("findById", MeteredCustomerService.FOUND);
+        long notFound = count("findById", MeteredCustomerService.NOT_FOUND);
+        long wrongCode = count("verify", MeteredCustomerService.WRONG_CODE);
+        long verified = count("verify", MeteredCustomerService.VERIFIED);
+
+        assertTrue(customerService.findById(10L).isPresent());
+        assertTrue(customerService.findById(-1L).isEmpty());
+        customerService.verify(10L, "WRONG");
+        customerService.verify(10L, "TKYOC");
+
+        assertEquals(found + 1, count("findById", MeteredCustomerService.FOUND));
+        assertEquals(notFound + 1, count("findById", MeteredCustomerService.NOT_FOUND));
+        assertEquals(wrongCode + 1, count("verify", MeteredCustomerService.WRONG_CODE));
+        assertEquals(verified + 1, count("verify", MeteredCustomerService.VERIFIED));
+        assertNotNull(meterRegistry.find("customer.repository").tag("method", "findById").timer());
+    }
+
+    private long count(String operation, String outcome) {
+        Timer timer = meterRegistry.find("customer.operation")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .timer();
+        return Optional.ofNullable(timer).map(Timer::count).orElse(0L);
+    }
+
+}
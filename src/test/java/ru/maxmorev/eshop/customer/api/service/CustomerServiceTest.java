@@ -9,6 +9,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.context.jdbc.SqlConfig;
@@ -22,7 +23,14 @@ import ru.maxmorev.eshop.customer.api.entities.CustomerInfo;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static org.junit.Assert.assertEquals;
@@ -40,6 +48,8 @@ public class CustomerServiceTest {
 
     @Autowired
     private CustomerService customerService;
+    @Autowired
+    private VerifyAttempts verifyAttempts;
     @PersistenceContext
     private EntityManager em;
 
@@ -163,6 +173,91 @@ public class CustomerServiceTest {
         assertFalse(customer.get().getVerified());
     }
 
+    @Test
+    @DisplayName("should lock verification after too many wrong codes")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void testVerifyLockout() {
+        verifyAttempts.reset(15L);
+        try {
+            for (int i = 0; i < 5; i++) {
+                assertFalse(customerService.verify(15L, "WRONG").get().getVerified());
+            }
+            assertThrows(VerificationLockedException.class, () -> customerService.verify(15L, "TKYOC"));
+            assertFalse(customerService.findById(15L).get().getVerified());
+        } finally {
+            verifyAttempts.reset(15L);
+        }
+    }
+
+    @Test
+    @DisplayName("should not let concurrent wrong codes get past the attempt limit")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void testVerifyLockoutConcurrent() throws Exception {
+        verifyAttempts.reset(15L);
+        int guesses = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(guesses);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < guesses; i++) {
+                String code = String.format("W%04d", i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        customerService.verify(15L, code);
+                        return true;
+                    } catch (VerificationLockedException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int checked = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get(30, TimeUnit.SECONDS)) {
+                    checked++;
+                }
+            }
+            assertEquals(5, checked);
+            assertThrows(VerificationLockedException.class, () -> customerService.verify(15L, "TKYOC"));
+            assertFalse(customerService.findById(15L).get().getVerified());
+        } finally {
+            executor.shutdownNow();
+            verifyAttempts.reset(15L);
+        }
+    }
+
+    @Test
+    @DisplayName("should not count wrong codes against a verified customer")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void testVerifyAlreadyVerified() {
+        assertTrue(customerService.verify(15L, "TKYOC").get().getVerified());
+        for (int i = 0; i < 10; i++) {
+            assertTrue(customerService.verify(15L, "WRONG").get().getVerified());
+        }
+    }
+
     @Test
     @Transactional
     @DisplayName("should update customer info")
@@ -186,6 +281,33 @@ public class CustomerServiceTest {
         assertEquals("Toronto", result.getCity());
     }
 
+    @Test
+    @DisplayName("should skip no-op updates and reject a stale version")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void updateInfoVersionTest() {
+        Customer stale = customerService.findByEmail("test@titsonfire.store").get();
+        assertEquals(Long.valueOf(0), stale.getVersion());
+
+        assertEquals(Long.valueOf(0), customerService.updateInfo(stale).getVersion());
+        assertEquals(Long.valueOf(0), customerService.findById(10L).get().getVersion());
+
+        Customer current = customerService.findByEmail("test@titsonfire.store").get();
+        current.setCity("Toronto");
+        customerService.updateInfo(current);
+        assertEquals(Long.valueOf(1), customerService.findById(10L).get().getVersion());
+
+        stale.setCity("Ottawa");
+        assertThrows(OptimisticLockingFailureException.class, () -> customerService.updateInfo(stale));
+        assertEquals("Toronto", customerService.findById(10L).get().getCity());
+    }
+
     @Test
     @Transactional
     @DisplayName("should update customer: create shopping cart and set it")
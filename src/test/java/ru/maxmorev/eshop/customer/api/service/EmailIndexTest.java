@@ -0,0 +1,104 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.util.BloomFilter;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "customer.email-index.enabled=true",
+        "customer.email-index.expected-insertions=1000"})
+@DisplayName("Integration email Bloom filter index test")
+public class EmailIndexTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private EmailIndex emailIndex;
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("should never report a stored email as absent")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void existsTest() throws Exception {
+        // fixture rows bypass the service
+        emailIndex.build();
+        assertTrue(emailIndex.mightContain("test@titsonfire.store"));
+        assertTrue(customerService.findByEmail("test@titsonfire.store").isPresent());
+        mockMvc.perform(head("/customer/email/test@titsonfire.store"))
+                .andExpect(status().isOk());
+        mockMvc.perform(head("/customer/email/unknown@titsonfire.store"))
+                .andExpect(status().isNotFound());
+        assertFalse(customerService.findByEmail("unknown@titsonfire.store").isPresent());
+        assertTrue(meterRegistry.get("customer.email.index.memory").gauge().value() > 0);
+    }
+
+    @Test
+    @DisplayName("should add created customers before commit")
+    @Sql(value = "classpath:db/customer/clean-up.sql",
+            config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+            executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    public void createTest() {
+        String email = "bloom@titsonfire.store";
+        customerService.createCustomerAndVerifyByEmail(Customer
+                .builder()
+                .email(email)
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build());
+        assertTrue(emailIndex.mightContain(email));
+        assertTrue(customerService.existsByEmail(email));
+    }
+
+    @Test
+    @DisplayName("should keep false positive rate near the configured one")
+    public void falsePositiveRateTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("customer" + i + "@titsonfire.store");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("customer" + i + "@titsonfire.store"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("absent" + i + "@titsonfire.store")) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives: " + falsePositives, falsePositives < 2_000);
+        assertTrue(filter.expectedFalsePositiveRate() < 0.02);
+    }
+
+}
@@ -0,0 +1,69 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import ru.maxmorev.eshop.customer.api.config.IdempotencyConfig;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Idempotent requests test")
+public class IdempotentRequestsTest {
+
+    private static final String CALLER = "remote:10.0.0.1";
+
+    private IdempotentRequests idempotentRequests(Duration duplicateWait) {
+        IdempotencyConfig config = new IdempotencyConfig();
+        config.setDuplicateWait(duplicateWait);
+        return new IdempotentRequests(config, new ObjectMapper(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("should forget an execution that failed with an Error")
+    public void errorTest() {
+        IdempotentRequests idempotentRequests = idempotentRequests(Duration.ofSeconds(1));
+        assertThrows(StackOverflowError.class, () -> idempotentRequests.call("test", CALLER, "key", "body", () -> {
+            throw new StackOverflowError();
+        }));
+        assertEquals("retried", idempotentRequests.call("test", CALLER, "key", "body", () -> "retried"));
+    }
+
+    @Test
+    @DisplayName("should stop waiting for a first request that does not complete")
+    public void duplicateWaitTest() throws Exception {
+        IdempotentRequests idempotentRequests = idempotentRequests(Duration.ofMillis(100));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> idempotentRequests.call("test", CALLER, "key", "body", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "first";
+        }));
+        started.await(5, TimeUnit.SECONDS);
+
+        assertThrows(IdempotentRequestPendingException.class,
+                () -> idempotentRequests.call("test", CALLER, "key", "body", () -> "duplicate"));
+        CompletableFuture<String> duplicate = idempotentRequests.submit("test", CALLER, "key", "body",
+                () -> CompletableFuture.completedFuture("duplicate"));
+        assertEquals(IdempotentRequestPendingException.class,
+                assertThrows(Exception.class, duplicate::join).getCause().getClass());
+
+        release.countDown();
+        assertEquals("first", first.get(5, TimeUnit.SECONDS));
+        assertEquals("first", idempotentRequests.call("test", CALLER, "key", "body", () -> "duplicate"));
+        // other callers have keys of their own
+        assertEquals("other", idempotentRequests.call("test", "remote:10.0.0.2", "key", "body", () -> "other"));
+    }
+
+}
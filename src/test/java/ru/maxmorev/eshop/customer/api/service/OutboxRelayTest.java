@@ -0,0 +1,126 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.repository.OutboxRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"customer.outbox.sink=file", "customer.outbox.file=" + OutboxRelayTest.FILE})
+@DisplayName("Integration customer outbox relay test")
+public class OutboxRelayTest {
+
+    static final String FILE = "build/outbox-relay-test.ndjson";
+
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private OutboxRelay outboxRelay;
+    @Autowired
+    private OutboxRepository outboxRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Before
+    public void setUp() throws Exception {
+        Files.createDirectories(Paths.get(FILE).toAbsolutePath().getParent());
+        Files.deleteIfExists(Paths.get(FILE));
+    }
+
+    @Test
+    @DisplayName("should relay created, verified and updated events of a customer in order")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    })
+    public void relayTest() throws Exception {
+        Customer customer = customerService.createCustomerAndVerifyByEmail(Customer
+                .builder()
+                .email("outbox@titsonfire.store")
+                .fullName("Maxim Morev")
+                .address("Test Address")
+                .postcode("111123")
+                .city("Moscow")
+                .country("Russia")
+                .password("helloFreakBitches")
+                .build());
+        customerService.verify(customer.getId(), customer.getVerifyCode());
+        Customer verified = customerService.findById(customer.getId()).get();
+        verified.setCity("Toronto");
+        customerService.updateInfo(verified);
+        assertEquals(3, outboxRepository.count());
+
+        assertEquals(3, outboxRelay.drain());
+        assertEquals(0, outboxRepository.count());
+        assertEquals(0, outboxRelay.drain());
+
+        List<JsonNode> events = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(FILE), StandardCharsets.UTF_8)) {
+            events.add(objectMapper.readTree(line));
+        }
+        assertEquals(3, events.size());
+        assertEquals("CUSTOMER_CREATED", events.get(0).get("type").asText());
+        assertEquals("CUSTOMER_VERIFIED", events.get(1).get("type").asText());
+        assertEquals("CUSTOMER_INFO_UPDATED", events.get(2).get("type").asText());
+        for (JsonNode event : events) {
+            assertEquals(customer.getId().longValue(), event.get("customerId").asLong());
+            assertFalse(event.get("customer").has("password"));
+        }
+        assertEquals("Moscow", events.get(0).get("customer").get("city").asText());
+        assertEquals("Toronto", events.get(2).get("customer").get("city").asText());
+        assertEquals(events.get(1).get("customer").get("version").asLong() + 1, events.get(2).get("customer").get("version").asLong());
+    }
+
+    @Test
+    @DisplayName("should not keep events of changes that rolled back")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    })
+    public void rollbackTest() {
+        try {
+            customerService.createCustomerAndVerifyByEmail(Customer
+                    .builder()
+                    .email("test@titsonfire.store")
+                    .fullName("Maxim Morev")
+                    .address("Test Address")
+                    .postcode("111123")
+                    .city("Moscow")
+                    .country("Russia")
+                    .password("helloFreakBitches")
+                    .build());
+        } catch (RuntimeException expected) {
+            // unique email
+        }
+        assertEquals(0, outboxRepository.count());
+    }
+
+}
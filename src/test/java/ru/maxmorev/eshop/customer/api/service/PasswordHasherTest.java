@@ -0,0 +1,62 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.maxmorev.eshop.customer.api.config.PasswordHashingConfig;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Password hashing pool test")
+public class PasswordHasherTest {
+
+    @Test
+    @DisplayName("should reject hashing when pool and queue are full")
+    public void rejectWhenSaturatedTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder blockingEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encodedPassword.equals(encode(rawPassword));
+            }
+        };
+        PasswordHashingConfig config = new PasswordHashingConfig();
+        config.setPoolSize(1);
+        config.setQueueCapacity(1);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PasswordHasher hasher = new PasswordHasher(blockingEncoder, config, meterRegistry);
+        try {
+            CompletableFuture<String> running = hasher.encodeAsync("first");
+            CompletableFuture<String> queued = hasher.encodeAsync("second");
+            assertThrows(RejectedExecutionException.class, () -> hasher.encode("third"));
+
+            release.countDown();
+            assertEquals("hash:first", running.get());
+            assertEquals("hash:second", queued.get());
+            assertEquals(2, meterRegistry.get("customer.hashing.time").timer().count());
+            assertTrue(meterRegistry.get("customer.hashing.wait").timer().count() >= 2);
+        } finally {
+            release.countDown();
+            hasher.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+package ru.maxmorev.eshop.customer.api.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.jdbc.SqlConfig;
+import org.springframework.test.context.jdbc.SqlGroup;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.util.FileSystemUtils;
+import ru.maxmorev.eshop.customer.api.EshopCustomerApiApplication;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "customer.replication.role=primary",
+        "customer.replication.interval=1h",
+        "customer.replication.directory=" + ReplicationTest.DIRECTORY})
+@DisplayName("Integration primary to read replica test")
+public class ReplicationTest {
+
+    static final String DIRECTORY = "build/replication-test";
+
+    @Autowired
+    private CustomerService customerService;
+    @Autowired
+    private ReplicationPublisher publisher;
+    private ConfigurableApplicationContext replica;
+
+    @Before
+    public void setUp() throws Exception {
+        FileSystemUtils.deleteRecursively(Paths.get(DIRECTORY));
+        Files.createDirectories(Paths.get(DIRECTORY));
+    }
+
+    @After
+    public void tearDown() {
+        if (Objects.nonNull(replica)) {
+            replica.close();
+        }
+    }
+
+    @Test
+    @DisplayName("should serve primary changes on the replica and reject writes there")
+    @SqlGroup({
+            @Sql(value = "classpath:db/customer/test-data.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD),
+            @Sql(value = "classpath:db/customer/clean-up.sql",
+                    config = @SqlConfig(encoding = "utf-8", separator = ";", commentPrefix = "--"),
+                    executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD),
+    })
+    public void replicationTest() throws Exception {
+        publisher.snapshot();
+        replica = new SpringApplicationBuilder(EshopCustomerApiApplication.class).run(
+                "--spring.profiles.active=replica",
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:replication-test;DB_CLOSE_DELAY=-1",
+                "--customer.replication.interval=1h",
+                "--customer.replication.directory=" + DIRECTORY);
+        CustomerReplica customerReplica = replica.getBean(CustomerReplica.class);
+        CustomerService replicaService = replica.getBean(CustomerService.class);
+        customerReplica.poll();
+        assertEquals("Maxim V Morev", replicaService.findById(10L).get().getFullName());
+        assertEquals(15L, replicaService.findByEmail("test-error@titsonfire.store").get().getId().longValue());
+
+        Customer customer = customerService.findById(10L).get();
+        customer.setCity("Toronto");
+        customerService.updateInfo(customer);
+        publisher.publish();
+        customerReplica.poll();
+        Customer replicated = replicaService.findById(10L).get();
+        assertEquals("Toronto", replicated.getCity());
+        assertEquals(customerService.findById(10L).get().getVersion(), replicated.getVersion());
+        assertTrue(customerReplica.health().getStatus().getCode().equals("UP"));
+        double lag = replica.getBean(MeterRegistry.class).get("customer.replication.lag").gauge().value();
+        assertFalse(Double.isNaN(lag));
+
+        String url = "http://localhost:" + replica.getEnvironment().getProperty("local.server.port");
+        TestRestTemplate rest = new TestRestTemplate();
+        assertEquals(HttpStatus.OK, rest.getForEntity(url + "/customer/id/10", String.class).getStatusCode());
+        ResponseEntity<String> write = rest.postForEntity(url + "/customer/", customer, String.class);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, write.getStatusCode());
+        assertTrue(write.getBody().contains("Read-only replica"));
+    }
+
+}
@@ -0,0 +1,45 @@
+package ru.maxmorev.eshop.customer.api.util;
+
+import org.junit.Test;
+import org.junit.jupiter.api.DisplayName;
+import ru.maxmorev.eshop.customer.api.annotation.AuthorityValues;
+import ru.maxmorev.eshop.customer.api.entities.Customer;
+import ru.maxmorev.eshop.customer.api.rest.request.CustomerVerify;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@DisplayName("Log rendering test")
+public class LogRendererTest {
+
+    @Test
+    @DisplayName("should render customer without password and verify code")
+    public void customerTest() {
+        Customer customer = Customer
+                .builder()
+                .id(10L)
+                .email("test@titsonfire.store")
+                .fullName("Maxim Morev")
+                .password("$2a$10$secret-hash")
+                .verifyCode("TKYOC")
+                .authorities(AuthorityValues.CUSTOMER.name())
+                .build();
+        String rendered = customer.toString();
+        assertTrue(rendered.contains("\"email\":\"test@titsonfire.store\""));
+        assertTrue(rendered.contains("CUSTOMER"));
+        assertFalse(rendered.contains("secret-hash"));
+        assertFalse(rendered.contains("TKYOC"));
+    }
+
+    @Test
+    @DisplayName("should render verify request without code")
+    public void customerVerifyTest() {
+        CustomerVerify verify = new CustomerVerify();
+        verify.setId(10L);
+        verify.setVerifyCode("TKYOC");
+        String rendered = verify.toString();
+        assertTrue(rendered.contains("\"id\":10"));
+        assertFalse(rendered.contains("TKYOC"));
+    }
+
+}
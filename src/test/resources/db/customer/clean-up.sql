@@ -1 +1,2 @@
 DELETE FROM CUSTOMER CASCADE;
+DELETE FROM CUSTOMER_OUTBOX;
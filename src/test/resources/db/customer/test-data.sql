@@ -7,7 +7,7 @@ insert into customer (
                email, 
                fullname, 
                postcode, 
-               authorities, 
+               authority_mask,
                date_of_creation, 
                password, 
                verifycode, 
@@ -20,7 +20,7 @@ insert into customer (
                'test@titsonfire.store',
                'Maxim V Morev',
                '111123',
-               'CUSTOMER',
+               2,
                '2019-08-25 18:46:23.918',
                '$2a$10$um0PcvHczmxeUEbR3vCBGuOvtNdgJffm72knavG/EFE7JDm9QBEha',
                'TKYOC',
@@ -35,7 +35,7 @@ insert into customer (
                email,
                fullname,
                postcode,
-               authorities,
+               authority_mask,
                date_of_creation,
                password,
                verifycode,
@@ -48,7 +48,7 @@ insert into customer (
                'test-error@titsonfire.store',
                'Maxim V Morev',
                '111123',
-               'CUSTOMER',
+               2,
                '2019-08-25 18:46:23.918',
                '$2a$10$um0PcvHczmxeUEbR3vCBGuOvtNdgJffm72knavG/EFE7JDm9QBEha',
                'TKYOC',